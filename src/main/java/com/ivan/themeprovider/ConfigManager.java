@@ -1,39 +1,90 @@
 package com.ivan.themeprovider;
 
+import com.ivan.themeprovider.model.ConfigSnapshot;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.error.YAMLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
- * Manages application configuration stored in YAML format
+ * Manages application configuration stored in YAML format.
+ * Setters persist through a debounced write-behind: bursts of changes are coalesced
+ * into one background write, so callers on the FX thread never wait for the disk.
+ * The configuration itself is an immutable {@link ConfigSnapshot} published through an
+ * atomic reference: readers never lock, writers swap in modified copies.
+ * External edits to the file are picked up while running and announced to
+ * {@link ReloadListener}s.
  */
-public class ConfigManager {
+public final class ConfigManager {
     private static final Logger logger = LoggerFactory.getLogger(ConfigManager.class);
-    private static final String CONFIG_FILE_NAME = "theme_provider_config.yml";
+    public static final String CONFIG_FILE_NAME = "theme_provider_config.yml";
     private static final String THEME_PROVIDERS_DIR_NAME = "themeProviders";
     private static final String LOGS_DIR_NAME = "logs";
+    private static final String CACHE_DIR_NAME = "cache";
+    private static final long SAVE_DELAY_MS = 300;
+    private static final long RELOAD_DELAY_MS = 200;
 
     private final Path baseDir;
     private final Path configPath;
-    private Map<String, Object> config;
+    private final AtomicReference<ConfigSnapshot> snapshot = new AtomicReference<>(ConfigSnapshot.empty());
     private final Yaml yaml;
+    private final ScheduledExecutorService saveExecutor;
+    private ScheduledFuture<?> pendingSave;
+    private ScheduledFuture<?> pendingReload;
+    private final DirectoryWatcher configWatcher = new DirectoryWatcher("config");
+    private final FileTreeEngine fileTreeEngine = new FileTreeEngine();
+    private final List<ReloadListener> reloadListeners = new CopyOnWriteArrayList<>();
+    // File content as last written or read by us, to tell our own saves from external edits
+    private volatile String lastKnownContent;
+    
+    /**
+     * Notified on the config writer thread after the file was changed externally and reloaded
+     */
+    public interface ReloadListener {
+        void onConfigReloaded(ConfigSnapshot previous, ConfigSnapshot current);
+    }
     
     public ConfigManager() {
         // Determine base directory by OS (Windows uses ProgramData)
-        this.baseDir = getDefaultBaseDir();
+        this(getDefaultBaseDir());
+    }
+    
+    /**
+     * @param baseDir Directory holding the config file, logs and caches
+     */
+    public ConfigManager(Path baseDir) {
+        this.baseDir = baseDir;
         this.configPath = baseDir.resolve(CONFIG_FILE_NAME);
         
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
         options.setPrettyFlow(true);
         this.yaml = new Yaml(options);
+        this.saveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "config-writer");
+            t.setDaemon(true);
+            return t;
+        });
         
         loadConfig();
+        configWatcher.register(baseDir, changed -> {
+            if (changed == null || changed.getFileName().toString().equals(CONFIG_FILE_NAME)) {
+                scheduleReload();
+            }
+        });
         
         // Ensure logs directory exists
         try {
@@ -47,43 +98,39 @@ public class ConfigManager {
      * Load configuration from file, create default if not exists
      */
     private void loadConfig() {
+        Map<String, Object> config = null;
         try {
             // Ensure base and config directory exists
             Files.createDirectories(baseDir);
             
             if (Files.exists(configPath)) {
-                try (FileInputStream fis = new FileInputStream(configPath.toFile())) {
-                    config = yaml.load(fis);
-                    if (config == null) {
-                        config = new HashMap<>();
-                    }
+                String content = Files.readString(configPath);
+                config = yaml.load(content);
+                lastKnownContent = content;
+                if (config == null) {
+                    config = new HashMap<>();
                 }
+                snapshot.set(ConfigSnapshot.of(config));
             } else {
                 // Create default configuration
-                config = new HashMap<>();
-                createDefaultConfig();
+                snapshot.set(ConfigSnapshot.of(createDefaultConfig()));
                 saveConfig();
             }
             
             logger.info("Configuration loaded from: {}", configPath);
         } catch (IOException e) {
             logger.error("Failed to load configuration", e);
-            config = new HashMap<>();
-            createDefaultConfig();
-        }
-        
-        // Ensure config is never null
-        if (config == null) {
-            config = new HashMap<>();
-            createDefaultConfig();
+            snapshot.set(ConfigSnapshot.of(createDefaultConfig()));
         }
     }
     
     /**
      * Create default configuration with official theme provider
      */
-    private void createDefaultConfig() {
+    private Map<String, Object> createDefaultConfig() {
+        Map<String, Object> config = new LinkedHashMap<>();
         config.put("selected_program_dir", "");
+        config.put("program_dirs", new ArrayList<String>());
         
         Map<String, String> installedProviders = new HashMap<>();
         installedProviders.put("official_ivan", "Ivan951236/PeggleRoguelikeThemes");
@@ -97,20 +144,184 @@ public class ConfigManager {
         config.put("auto_update_themes", true);
         
         logger.info("Created default configuration");
+        return config;
     }
     
     /**
-     * Save configuration to file
+     * Current configuration; the snapshot never changes, so it can be read from any thread
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * Apply a change by copy-on-write: the new snapshot is published with compare-and-set,
+     * retrying against the latest snapshot when another writer got there first
+     *
+     * @param change Function deriving the new snapshot; may run more than once
+     * @return The published snapshot
+     */
+    public ConfigSnapshot update(UnaryOperator<ConfigSnapshot> change) {
+        ConfigSnapshot current;
+        ConfigSnapshot next;
+        do {
+            current = snapshot.get();
+            next = change.apply(current);
+        } while (!snapshot.compareAndSet(current, next));
+        if (next != current) {
+            requestSave();
+        }
+        return next;
+    }
+    
+    /**
+     * Save configuration to file now, replacing any pending background save
      */
     public void saveConfig() {
+        synchronized (this) {
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
+                pendingSave = null;
+            }
+        }
+        writeConfig();
+    }
+    
+    /**
+     * Schedule a background save; further changes within the delay are written with it
+     */
+    public synchronized void requestSave() {
+        if (saveExecutor.isShutdown()) {
+            // No writer left after shutdown; persist directly
+            writeConfig();
+            return;
+        }
+        if (pendingSave != null) {
+            return;
+        }
+        pendingSave = saveExecutor.schedule(() -> {
+            synchronized (this) {
+                pendingSave = null;
+            }
+            writeConfig();
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write a pending background save immediately, if there is one
+     */
+    public void flush() {
+        boolean pending;
+        synchronized (this) {
+            pending = pendingSave != null && pendingSave.cancel(false);
+            pendingSave = null;
+        }
+        if (pending) {
+            writeConfig();
+        }
+    }
+    
+    public void addReloadListener(ReloadListener listener) {
+        reloadListeners.add(listener);
+    }
+    
+    public void removeReloadListener(ReloadListener listener) {
+        reloadListeners.remove(listener);
+    }
+    
+    /**
+     * Debounce change events so an editor's save is read once, after it finished writing
+     */
+    private synchronized void scheduleReload() {
+        if (saveExecutor.isShutdown()) return;
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = saveExecutor.schedule(this::reloadConfig, RELOAD_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Re-read the config file after an external edit and publish it as the current snapshot.
+     * The file wins over in-memory changes that were not saved yet; invalid edits are ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private void reloadConfig() {
+        String content;
+        synchronized (configPath) {
+            try {
+                content = Files.readString(configPath);
+            } catch (NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to read changed configuration: {}", configPath, e);
+                return;
+            }
+            if (content.equals(lastKnownContent)) {
+                // Our own save, or a touch without changes
+                return;
+            }
+            lastKnownContent = content;
+        }
+        Object data;
         try {
-            Files.createDirectories(baseDir);
-            try (FileWriter writer = new FileWriter(configPath.toFile())) {
-                yaml.dump(config, writer);
+            data = yaml.load(content);
+        } catch (YAMLException e) {
+            logger.warn("Ignoring invalid configuration edit in {}: {}", configPath, e.getMessage());
+            return;
+        }
+        if (!(data instanceof Map)) {
+            logger.warn("Ignoring configuration edit without a top-level map: {}", configPath);
+            return;
+        }
+        ConfigSnapshot current = ConfigSnapshot.of((Map<String, Object>) data);
+        ConfigSnapshot previous = snapshot.getAndSet(current);
+        logger.info("Configuration reloaded from: {}", configPath);
+        for (ReloadListener listener : reloadListeners) {
+            try {
+                listener.onConfigReloaded(previous, current);
+            } catch (Exception e) {
+                logger.warn("Configuration reload listener failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Flush pending changes and stop the background writer, file watch and file tree engine
+     */
+    public void shutdown() {
+        configWatcher.close();
+        fileTreeEngine.shutdown();
+        flush();
+        saveExecutor.shutdown();
+        try {
+            // A save that already started is allowed to finish
+            saveExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Serialize the configuration and replace the file via a temp file and atomic rename
+     */
+    private void writeConfig() {
+        Path tmp = configPath.resolveSibling(CONFIG_FILE_NAME + ".tmp");
+        synchronized (configPath) {
+            // Serialized after taking the lock, so the last write always carries the latest snapshot
+            String content = yaml.dump(snapshot.get().toMap());
+            try {
+                Files.createDirectories(baseDir);
+                Files.writeString(tmp, content);
+                try {
+                    Files.move(tmp, configPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, configPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                lastKnownContent = content;
+                logger.info("Configuration saved to: {}", configPath);
+            } catch (IOException e) {
+                logger.error("Failed to save configuration", e);
             }
-            logger.info("Configuration saved to: {}", configPath);
-        } catch (IOException e) {
-            logger.error("Failed to save configuration", e);
         }
     }
     
@@ -118,77 +329,115 @@ public class ConfigManager {
      * Get the selected program directory
      */
     public String getSelectedProgramDir() {
-        return (String) config.getOrDefault("selected_program_dir", "");
+        return snapshot.get().getString("selected_program_dir", "");
     }
     
     /**
      * Set the selected program directory
      */
     public void setSelectedProgramDir(String dir) {
-        config.put("selected_program_dir", dir);
-        saveConfig();
+        update(c -> c.with("selected_program_dir", dir));
     }
     
     /**
-     * Get installed theme providers
+     * Get every program directory themes are installed to: the selected directory first,
+     * followed by the additional directories from program_dirs
      */
-    @SuppressWarnings("unchecked")
-    public Map<String, String> getInstalledThemeProviders() {
-        Object providers = config.get("installed_theme_providers");
-        if (providers instanceof Map) {
-            return (Map<String, String>) providers;
+    public List<String> getProgramDirs() {
+        ConfigSnapshot current = snapshot.get();
+        Set<String> dirs = new LinkedHashSet<>();
+        String selected = current.getString("selected_program_dir", "");
+        if (!selected.isEmpty()) {
+            dirs.add(selected);
         }
-        return new HashMap<>();
+        for (String dir : current.getStringList("program_dirs")) {
+            if (!dir.isEmpty()) dirs.add(dir);
+        }
+        return new ArrayList<>(dirs);
+    }
+    
+    /**
+     * Add an additional program directory (e.g. a beta or modded install)
+     */
+    public void addProgramDir(String dir) {
+        update(c -> {
+            List<String> dirs = new ArrayList<>(c.getStringList("program_dirs"));
+            if (dir.equals(c.getString("selected_program_dir", "")) || dirs.contains(dir)) {
+                return c;
+            }
+            dirs.add(dir);
+            return c.with("program_dirs", dirs);
+        });
+    }
+    
+    /**
+     * Remove a program directory; removing the selected one promotes the next directory
+     */
+    public void removeProgramDir(String dir) {
+        update(c -> {
+            List<String> dirs = new ArrayList<>(c.getStringList("program_dirs"));
+            if (dir.equals(c.getString("selected_program_dir", ""))) {
+                return c.with("selected_program_dir", dirs.isEmpty() ? "" : dirs.remove(0))
+                        .with("program_dirs", dirs);
+            }
+            return dirs.remove(dir) ? c.with("program_dirs", dirs) : c;
+        });
+    }
+    
+    /**
+     * Get installed theme providers as an unmodifiable map, safe to iterate on any thread
+     */
+    public Map<String, String> getInstalledThemeProviders() {
+        return snapshot.get().getStringMap("installed_theme_providers");
     }
     
     /**
      * Add a theme provider
      */
     public void addThemeProvider(String id, String repository) {
-        Map<String, String> providers = getInstalledThemeProviders();
-        providers.put(id, repository);
-        config.put("installed_theme_providers", providers);
-        saveConfig();
+        update(c -> {
+            Map<String, String> providers = new LinkedHashMap<>(c.getStringMap("installed_theme_providers"));
+            providers.put(id, repository);
+            return c.with("installed_theme_providers", providers);
+        });
     }
     
     /**
      * Remove a theme provider
      */
     public void removeThemeProvider(String id) {
-        Map<String, String> providers = getInstalledThemeProviders();
-        providers.remove(id);
-        config.put("installed_theme_providers", providers);
-        saveConfig();
+        update(c -> {
+            Map<String, String> providers = new LinkedHashMap<>(c.getStringMap("installed_theme_providers"));
+            return providers.remove(id) != null ? c.with("installed_theme_providers", providers) : c;
+        });
     }
     
     /**
      * Check if dark mode is enabled
      */
     public boolean isDarkMode() {
-        return (Boolean) config.getOrDefault("dark_mode", true);
+        return snapshot.get().getBoolean("dark_mode", true);
     }
     
     /**
      * Set dark mode preference
      */
     public void setDarkMode(boolean darkMode) {
-        config.put("dark_mode", darkMode);
-        saveConfig();
+        update(c -> c.with("dark_mode", darkMode));
     }
     
     /**
      * Check if auto-update is enabled
      */
     public boolean isAutoUpdateEnabled() {
-        return (Boolean) config.getOrDefault("auto_update_themes", true);
+        return snapshot.get().getBoolean("auto_update_themes", true);
     }
     
     /**
      * Set auto-update preference
      */
     public void setAutoUpdate(boolean autoUpdate) {
-        config.put("auto_update_themes", autoUpdate);
-        saveConfig();
+        update(c -> c.with("auto_update_themes", autoUpdate));
     }
     
     /**
@@ -202,14 +451,14 @@ public class ConfigManager {
 
     public Path getLogsDir() { return baseDir.resolve(LOGS_DIR_NAME); }
 
+    public Path getCacheDir() { return baseDir.resolve(CACHE_DIR_NAME); }
+
     public Path getProvidersRoot() {
-        String val = (String) config.getOrDefault("providers_root", getDefaultProvidersRoot().toString());
-        return Paths.get(val);
+        return Paths.get(snapshot.get().getString("providers_root", getDefaultProvidersRoot().toString()));
     }
 
     public void setProvidersRoot(Path newRoot) {
-        config.put("providers_root", newRoot.toString());
-        saveConfig();
+        update(c -> c.with("providers_root", newRoot.toString()));
     }
 
     private Path getDefaultProvidersRoot() {
@@ -224,62 +473,56 @@ public class ConfigManager {
         return Paths.get(System.getProperty("user.home"), ".theme_provider_client");
     }
 
-    /** Move providers directory content to a new root, preserving data. */
-    public boolean moveProvidersRoot(Path newRoot) {
+    /**
+     * Move the providers directory to a new root in the background, preserving data.
+     * The configured root switches only once everything was moved; after a failed or
+     * cancelled move the old root stays configured and intact.
+     *
+     * @param newRoot New providers root
+     * @param listener Optional progress listener, called from pool threads
+     * @return Handle to follow or cancel the move
+     */
+    public FileTreeEngine.Operation moveProvidersRootAsync(Path newRoot, FileTreeEngine.ProgressListener listener) {
         Path oldRoot = getProvidersRoot();
         try {
             // Ensure new root is writable
             Files.createDirectories(newRoot);
             if (!Files.isWritable(newRoot)) {
-                logger.error("New providers root not writable: {}", newRoot);
-                return false;
-            }
-            if (!Files.exists(oldRoot)) {
-                // Nothing to move, just set
-                setProvidersRoot(newRoot);
-                return true;
-            }
-            // Try atomic move
-            try {
-                Files.createDirectories(newRoot.getParent());
-                Files.move(oldRoot, newRoot, StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException moveErr) {
-                // Fallback to copy then delete
-                copyDirectory(oldRoot, newRoot);
-                deleteDirectory(oldRoot);
+                throw new AccessDeniedException(newRoot.toString(), null, "New providers root not writable");
             }
-            setProvidersRoot(newRoot);
-            logger.info("Moved providers root: {} -> {}", oldRoot, newRoot);
-            return true;
         } catch (IOException e) {
             logger.error("Failed to move providers root to {}", newRoot, e);
-            return false;
+            return FileTreeEngine.Operation.failed(e);
         }
-    }
-
-    private void copyDirectory(Path sourceDir, Path destDir) throws IOException {
-        Files.createDirectories(destDir);
-        Files.walk(sourceDir).forEach(src -> {
-            try {
-                Path dst = destDir.resolve(sourceDir.relativize(src));
-                if (Files.isDirectory(src)) {
-                    Files.createDirectories(dst);
-                } else {
-                    Files.copy(src, dst, StandardCopyOption.REPLACE_EXISTING);
-                }
-            } catch (IOException e) {
-                logger.warn("Copy failed for {}", src, e);
+        if (!Files.exists(oldRoot) || oldRoot.toAbsolutePath().normalize().equals(newRoot.toAbsolutePath().normalize())) {
+            // Nothing to move, just set
+            setProvidersRoot(newRoot);
+            return FileTreeEngine.Operation.completed();
+        }
+        return fileTreeEngine.moveTreeAsync(oldRoot, newRoot, listener).then(result -> {
+            if (result.isSuccess()) {
+                setProvidersRoot(newRoot);
+                logger.info("Moved providers root: {} -> {}", oldRoot, newRoot);
+            } else {
+                logger.error("Moving providers root to {} did not complete, keeping {}", newRoot, oldRoot);
             }
         });
     }
 
-    private void deleteDirectory(Path directory) throws IOException {
-        if (Files.exists(directory)) {
-            Files.walk(directory)
-                 .sorted(Comparator.reverseOrder())
-                 .forEach(p -> {
-                     try { Files.deleteIfExists(p); } catch (IOException ignored) {}
-                 });
+    /** Move providers directory content to a new root, preserving data. Blocks until done. */
+    public boolean moveProvidersRoot(Path newRoot) {
+        try {
+            return moveProvidersRootAsync(newRoot, null).getCompletion().join().isSuccess();
+        } catch (CompletionException e) {
+            logger.error("Failed to move providers root to {}", newRoot, e.getCause());
+            return false;
         }
     }
+
+    /**
+     * Shared engine for file tree copies, moves and deletes
+     */
+    public FileTreeEngine getFileTreeEngine() {
+        return fileTreeEngine;
+    }
 }
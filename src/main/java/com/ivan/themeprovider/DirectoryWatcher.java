@@ -0,0 +1,147 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches directories for changes on a single daemon thread and notifies listeners.
+ * Listeners receive the changed entry, or null when the change is unknown
+ * (event overflow, or the watched directory itself went away).
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    private final String name;
+    private final Map<WatchKey, Registration> registrations = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> keysByDirectory = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean closed;
+
+    private static class Registration {
+        private final Path directory;
+        private final List<Consumer<Path>> listeners = new CopyOnWriteArrayList<>();
+
+        Registration(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * @param name Used for the watcher thread name
+     */
+    public DirectoryWatcher(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Start watching a directory (non-recursively)
+     *
+     * @param directory Directory to watch
+     * @param listener Called from the watcher thread for every change
+     * @return true if the directory is being watched
+     */
+    public synchronized boolean register(Path directory, Consumer<Path> listener) {
+        if (closed) return false;
+        Path dir = directory.toAbsolutePath().normalize();
+        try {
+            WatchKey key = keysByDirectory.get(dir);
+            if (key == null || !key.isValid()) {
+                if (watchService == null) {
+                    watchService = dir.getFileSystem().newWatchService();
+                    thread = new Thread(this::processEvents, "dir-watcher-" + name);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                keysByDirectory.put(dir, key);
+                registrations.put(key, new Registration(dir));
+                logger.debug("Watching directory: {}", dir);
+            }
+            registrations.get(key).listeners.add(listener);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Cannot watch directory {}: {}", dir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a directory currently has an active watch
+     */
+    public boolean isWatching(Path directory) {
+        WatchKey key = keysByDirectory.get(directory.toAbsolutePath().normalize());
+        return key != null && key.isValid();
+    }
+
+    /**
+     * Stop watching a directory and drop its listeners
+     */
+    public synchronized void unregister(Path directory) {
+        WatchKey key = keysByDirectory.remove(directory.toAbsolutePath().normalize());
+        if (key != null) {
+            key.cancel();
+            registrations.remove(key);
+        }
+    }
+
+    private void processEvents() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Registration registration = registrations.get(key);
+            if (registration == null) {
+                key.reset();
+                continue;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                Path changed = event.kind() == OVERFLOW ? null : registration.directory.resolve((Path) event.context());
+                notifyListeners(registration, changed);
+            }
+            if (!key.reset()) {
+                // Directory deleted or otherwise inaccessible
+                keysByDirectory.remove(registration.directory, key);
+                registrations.remove(key);
+                notifyListeners(registration, null);
+            }
+        }
+    }
+
+    private void notifyListeners(Registration registration, Path changed) {
+        for (Consumer<Path> listener : registration.listeners) {
+            try {
+                listener.accept(changed);
+            } catch (Exception e) {
+                logger.warn("Directory watch listener failed for {}", registration.directory, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        registrations.clear();
+        keysByDirectory.clear();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close watch service", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central execution layer for background work.
+ * Blocking git and disk I/O runs on virtual threads, parse/render work on bounded
+ * platform pools. Every task is tracked so it can be counted, cancelled and drained
+ * on shutdown.
+ */
+public class ExecutionManager {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionManager.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final ExecutorService ioExecutor;
+    private final ExecutorService cpuExecutor;
+    private final ExecutorService backgroundExecutor;
+
+    private final Set<Future<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger ioInFlight = new AtomicInteger();
+    private final AtomicInteger cpuInFlight = new AtomicInteger();
+    private final AtomicInteger backgroundInFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean shutdown;
+
+    public ExecutionManager() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("io-", 0).factory());
+        this.cpuExecutor = Executors.newFixedThreadPool(cores, platformThreads("cpu-", Thread.NORM_PRIORITY));
+        this.backgroundExecutor = Executors.newFixedThreadPool(Math.max(1, cores - 1),
+                                                               platformThreads("background-", Thread.MIN_PRIORITY));
+    }
+
+    private static ThreadFactory platformThreads(String prefix, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(priority);
+            return t;
+        };
+    }
+
+    /**
+     * Executor for blocking I/O (git, file copies); each task gets its own virtual thread
+     */
+    public Executor io() {
+        return command -> submit(ioExecutor, ioInFlight, Executors.callable(command));
+    }
+
+    /**
+     * Bounded executor for CPU-bound work such as parsing and rendering
+     */
+    public Executor cpu() {
+        return command -> submit(cpuExecutor, cpuInFlight, Executors.callable(command));
+    }
+
+    /**
+     * Bounded low-priority executor for speculative CPU work that must not compete with the UI
+     */
+    public Executor background() {
+        return command -> submit(backgroundExecutor, backgroundInFlight, Executors.callable(command));
+    }
+
+    public <T> Future<T> submitIo(Callable<T> task) {
+        return submit(ioExecutor, ioInFlight, task);
+    }
+
+    public <T> Future<T> submitCpu(Callable<T> task) {
+        return submit(cpuExecutor, cpuInFlight, task);
+    }
+
+    public <T> CompletableFuture<T> supplyIo(Callable<T> task) {
+        return supply(ioExecutor, ioInFlight, task);
+    }
+
+    public <T> CompletableFuture<T> supplyCpu(Callable<T> task) {
+        return supply(cpuExecutor, cpuInFlight, task);
+    }
+
+    /**
+     * Open a scope whose I/O subtasks are joined (or cancelled) before it is closed
+     */
+    public Scope openScope() {
+        return new Scope();
+    }
+
+    private <T> Future<T> submit(ExecutorService executor, AtomicInteger counter, Callable<T> task) {
+        return submit(executor, counter, task, null);
+    }
+
+    /**
+     * @param result Future handed out for the task, if any; cancelled when the task is cancelled,
+     *               including before it started (cancelAll, shutdown)
+     */
+    private <T> Future<T> submit(ExecutorService executor, AtomicInteger counter, Callable<T> task,
+                                 CompletableFuture<T> result) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Execution manager is shut down");
+        }
+        FutureTask<T> future = new FutureTask<>(task) {
+            private final AtomicBoolean started = new AtomicBoolean();
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            // A task stays in flight until its body has exited, even if it was cancelled while running
+            @Override public void run() {
+                started.set(true);
+                try {
+                    super.run();
+                } finally {
+                    release();
+                }
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) {
+                    counter.decrementAndGet();
+                }
+            }
+
+            @Override protected void done() {
+                inFlight.remove(this);
+                if (isCancelled()) {
+                    if (!started.get()) {
+                        // Cancelled while queued: run() may never be called
+                        release();
+                    }
+                    // The task body may never run, so it cannot complete the result itself
+                    if (result != null) result.cancel(false);
+                    return;
+                }
+                try {
+                    get();
+                    completed.incrementAndGet();
+                } catch (ExecutionException | InterruptedException e) {
+                    failed.incrementAndGet();
+                }
+            }
+        };
+        counter.incrementAndGet();
+        inFlight.add(future);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(future);
+            counter.decrementAndGet();
+            throw e;
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> supply(ExecutorService executor, AtomicInteger counter, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<T> future = submit(executor, counter, () -> {
+            try {
+                T value = task.call();
+                result.complete(value);
+                return value;
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }, result);
+        // Cancelling the returned future interrupts the underlying task
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) future.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Cancel every task that is queued or running
+     */
+    public void cancelAll() {
+        for (Future<?> future : new ArrayList<>(inFlight)) {
+            future.cancel(true);
+        }
+    }
+
+    public int getIoInFlight() { return ioInFlight.get(); }
+    public int getCpuInFlight() { return cpuInFlight.get(); }
+    public int getBackgroundInFlight() { return backgroundInFlight.get(); }
+    public long getCompletedCount() { return completed.get(); }
+    public long getFailedCount() { return failed.get(); }
+
+    /**
+     * Stop accepting work, give running tasks a short grace period, then interrupt them
+     */
+    public void shutdown() {
+        if (shutdown) return;
+        shutdown = true;
+        logger.info("Shutting down execution manager: {}", this);
+        List<ExecutorService> executors = List.of(ioExecutor, cpuExecutor, backgroundExecutor);
+        executors.forEach(ExecutorService::shutdown);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+            for (ExecutorService executor : executors) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!inFlight.isEmpty()) {
+            logger.warn("Cancelling {} tasks still running at shutdown", inFlight.size());
+            cancelAll();
+        }
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionManager{ioInFlight=" + ioInFlight.get() +
+               ", cpuInFlight=" + cpuInFlight.get() +
+               ", backgroundInFlight=" + backgroundInFlight.get() +
+               ", completed=" + completed.get() +
+               ", failed=" + failed.get() + '}';
+    }
+
+    /**
+     * Structured group of I/O subtasks: all forks are awaited by {@link #join()}, and
+     * closing the scope cancels whatever is still running so no subtask outlives it
+     */
+    public class Scope implements AutoCloseable {
+        private final List<Future<?>> forks = new ArrayList<>();
+
+        public synchronized <T> Future<T> fork(Callable<T> task) {
+            Future<T> future = submitIo(task);
+            forks.add(future);
+            return future;
+        }
+
+        /**
+         * Wait for every forked subtask; on interruption the remaining subtasks are cancelled
+         */
+        public void join() throws InterruptedException {
+            List<Future<?>> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(forks);
+            }
+            try {
+                for (Future<?> future : snapshot) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException | CancellationException e) {
+                        // Reported through the subtask's own future
+                    }
+                }
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            }
+        }
+
+        public synchronized void cancel() {
+            forks.forEach(f -> f.cancel(true));
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+    }
+}
@@ -0,0 +1,601 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Parallel file tree operations (copy, move, delete) on a bounded fork-join pool.
+ * Directories are listed and processed at the same time: every directory becomes a task
+ * that forks its subdirectories and handles its files in batches. Operations report
+ * progress with an ETA and can be cancelled between files.
+ */
+public class FileTreeEngine {
+    private static final Logger logger = LoggerFactory.getLogger(FileTreeEngine.class);
+    private static final int FILES_PER_TASK = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Progress of a tree operation, called from pool threads
+     */
+    public interface ProgressListener {
+        void onProgress(TreeProgress progress);
+    }
+
+    /**
+     * Point-in-time progress. The discovered totals grow while the tree is being walked,
+     * so the ETA is optimistic until the walk is complete.
+     */
+    public static class TreeProgress {
+        private final long filesDone;
+        private final long filesDiscovered;
+        private final long bytesDone;
+        private final long bytesDiscovered;
+        private final long elapsedMillis;
+
+        public TreeProgress(long filesDone, long filesDiscovered, long bytesDone, long bytesDiscovered, long elapsedMillis) {
+            this.filesDone = filesDone;
+            this.filesDiscovered = filesDiscovered;
+            this.bytesDone = bytesDone;
+            this.bytesDiscovered = bytesDiscovered;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getFilesDone() { return filesDone; }
+        public long getFilesDiscovered() { return filesDiscovered; }
+        public long getBytesDone() { return bytesDone; }
+        public long getBytesDiscovered() { return bytesDiscovered; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        /**
+         * Completed fraction between 0 and 1, by bytes when the operation moves bytes, else by files
+         */
+        public double getFraction() {
+            if (bytesDiscovered > 0) return Math.min(1.0, (double) bytesDone / bytesDiscovered);
+            if (filesDiscovered > 0) return Math.min(1.0, (double) filesDone / filesDiscovered);
+            return 0.0;
+        }
+
+        /**
+         * Estimated remaining time from the throughput so far, or -1 if not known yet
+         */
+        public long getEtaMillis() {
+            double fraction = getFraction();
+            if (fraction <= 0.0 || elapsedMillis <= 0) return -1;
+            return (long) (elapsedMillis * (1.0 - fraction) / fraction);
+        }
+    }
+
+    /**
+     * Outcome of a tree operation
+     */
+    public static class TreeResult {
+        private final long files;
+        private final long bytes;
+        private final List<Path> failures;
+        private final boolean cancelled;
+
+        public TreeResult(long files, long bytes, List<Path> failures, boolean cancelled) {
+            this.files = files;
+            this.bytes = bytes;
+            this.failures = failures;
+            this.cancelled = cancelled;
+        }
+
+        public long getFiles() { return files; }
+        public long getBytes() { return bytes; }
+        public List<Path> getFailures() { return failures; }
+        public boolean isCancelled() { return cancelled; }
+        public boolean isSuccess() { return failures.isEmpty() && !cancelled; }
+    }
+
+    /**
+     * Handle for an asynchronous tree operation
+     */
+    public static class Operation {
+        private final Progress progress;
+        private final CompletableFuture<TreeResult> completion;
+
+        private Operation(Progress progress, CompletableFuture<TreeResult> completion) {
+            this.progress = progress;
+            this.completion = completion;
+        }
+
+        /**
+         * Stop after the files currently being processed; the result is marked cancelled
+         */
+        public void cancel() {
+            progress.cancelled = true;
+        }
+
+        public boolean isCancelled() { return progress.cancelled; }
+
+        /**
+         * Completes with the result, or exceptionally if the operation could not start
+         */
+        public CompletableFuture<TreeResult> getCompletion() { return completion; }
+
+        /**
+         * The same operation, completing only after the given step ran on its result
+         */
+        public Operation then(Consumer<TreeResult> step) {
+            return new Operation(progress, completion.thenApply(result -> {
+                step.accept(result);
+                return result;
+            }));
+        }
+
+        /**
+         * An operation with nothing to do
+         */
+        public static Operation completed() {
+            return new Operation(new Progress(null), CompletableFuture.completedFuture(
+                new TreeResult(0, 0, Collections.emptyList(), false)));
+        }
+
+        /**
+         * An operation that failed before it started
+         */
+        public static Operation failed(IOException error) {
+            return new Operation(new Progress(null), CompletableFuture.failedFuture(error));
+        }
+    }
+
+    public FileTreeEngine() {
+        this(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param parallelism Maximum number of concurrent file operations
+     */
+    public FileTreeEngine(int parallelism) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("file-tree-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * Copy a directory tree, replacing existing files
+     *
+     * @param sourceDir Directory to copy
+     * @param targetDir Destination directory, created if missing
+     * @param listener Optional progress listener, called from pool threads
+     * @return Totals and the source paths that could not be copied
+     */
+    public TreeResult copyTree(Path sourceDir, Path targetDir, ProgressListener listener) throws IOException {
+        return copyTree(sourceDir, List.of(targetDir), listener);
+    }
+
+    /**
+     * Copy a directory tree to several destinations at once. Every source file is read
+     * once and written to all destinations; progress counts source bytes.
+     *
+     * @param sourceDir Directory to copy
+     * @param targetDirs Destination directories, created if missing
+     * @param listener Optional progress listener, called from pool threads
+     * @return Totals and the source paths that could not be copied to every destination
+     */
+    public TreeResult copyTree(Path sourceDir, List<Path> targetDirs, ProgressListener listener) throws IOException {
+        return copyTree(sourceDir, targetDirs, new Progress(listener));
+    }
+
+    private TreeResult copyTree(Path sourceDir, List<Path> targetDirs, Progress progress) throws IOException {
+        if (!Files.isDirectory(sourceDir)) {
+            throw new NotDirectoryException(sourceDir.toString());
+        }
+        for (Path targetDir : targetDirs) {
+            Files.createDirectories(targetDir);
+        }
+        pool.invoke(new CopyDirectoryTask(sourceDir, targetDirs, progress));
+        TreeResult result = progress.toResult();
+        logger.debug("Copied {} files ({} bytes) {} -> {}, {} failures",
+                     result.getFiles(), result.getBytes(), sourceDir, targetDirs, result.getFailures().size());
+        return result;
+    }
+
+    /**
+     * Delete a directory tree. Files are deleted in parallel, each directory once it is empty.
+     *
+     * @param directory Directory to delete; a missing directory is a successful no-op
+     * @param listener Optional progress listener, called from pool threads
+     * @return Totals and the paths that could not be deleted
+     */
+    public TreeResult deleteTree(Path directory, ProgressListener listener) {
+        return deleteTree(directory, new Progress(listener));
+    }
+
+    private TreeResult deleteTree(Path directory, Progress progress) {
+        if (Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            pool.invoke(new DeleteDirectoryTask(directory, progress));
+        } else {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                progress.failed(directory, e);
+            }
+        }
+        TreeResult result = progress.toResult();
+        logger.debug("Deleted {} files ({} bytes) under {}, {} failures",
+                     result.getFiles(), result.getBytes(), directory, result.getFailures().size());
+        return result;
+    }
+
+    /**
+     * Move a directory tree. A plain rename is tried first; across file systems (or onto a
+     * non-empty target) the tree is copied, and the source is deleted only if every file
+     * was copied and the operation was not cancelled.
+     *
+     * @param sourceDir Directory to move
+     * @param targetDir New location
+     * @param listener Optional progress listener, called from pool threads
+     * @return Totals of the copy, or an empty successful result for a rename
+     */
+    public TreeResult moveTree(Path sourceDir, Path targetDir, ProgressListener listener) throws IOException {
+        return moveTree(sourceDir, targetDir, new Progress(listener));
+    }
+
+    private TreeResult moveTree(Path sourceDir, Path targetDir, Progress progress) throws IOException {
+        Path source = sourceDir.toAbsolutePath().normalize();
+        Path target = targetDir.toAbsolutePath().normalize();
+        if (target.startsWith(source)) {
+            throw new IOException("Cannot move " + source + " into itself: " + target);
+        }
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Renamed {} -> {}", source, target);
+            return progress.toResult();
+        } catch (IOException renameError) {
+            logger.debug("Rename {} -> {} not possible ({}), copying", source, target, renameError.toString());
+        }
+        TreeResult copy = copyTree(source, List.of(target), progress);
+        if (!copy.isSuccess()) {
+            logger.warn("Move {} -> {} incomplete ({} failures, cancelled: {}); source kept",
+                        source, target, copy.getFailures().size(), copy.isCancelled());
+            return copy;
+        }
+        TreeResult delete = deleteTree(source, (ProgressListener) null);
+        if (!delete.isSuccess()) {
+            logger.warn("Moved {} -> {} but {} source entries could not be removed",
+                        source, target, delete.getFailures().size());
+        }
+        return copy;
+    }
+
+    /**
+     * Copy a directory tree in the background
+     */
+    public Operation copyTreeAsync(Path sourceDir, Path targetDir, ProgressListener listener) {
+        Progress progress = new Progress(listener);
+        return start(progress, () -> copyTree(sourceDir, List.of(targetDir), progress));
+    }
+
+    /**
+     * Delete a directory tree in the background
+     */
+    public Operation deleteTreeAsync(Path directory, ProgressListener listener) {
+        Progress progress = new Progress(listener);
+        return start(progress, () -> deleteTree(directory, progress));
+    }
+
+    /**
+     * Move a directory tree in the background
+     */
+    public Operation moveTreeAsync(Path sourceDir, Path targetDir, ProgressListener listener) {
+        Progress progress = new Progress(listener);
+        return start(progress, () -> moveTree(sourceDir, targetDir, progress));
+    }
+
+    private interface TreeJob {
+        TreeResult run() throws IOException;
+    }
+
+    private Operation start(Progress progress, TreeJob job) {
+        CompletableFuture<TreeResult> completion = new CompletableFuture<>();
+        // The coordinating thread only waits on the pool, so a virtual thread is enough
+        Thread.ofVirtual().name("file-tree-op").start(() -> {
+            try {
+                completion.complete(job.run());
+            } catch (Exception e) {
+                completion.completeExceptionally(e);
+            }
+        });
+        return new Operation(progress, completion);
+    }
+
+    /**
+     * Copy one file to several destinations, reading the source only once
+     *
+     * @return Number of source bytes copied
+     */
+    public static long copyFile(Path source, List<Path> targets) throws IOException {
+        if (targets.size() == 1 || Files.isSymbolicLink(source)) {
+            long size = 0;
+            for (Path target : targets) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+                size = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).size();
+            }
+            return size;
+        }
+        List<OutputStream> outputs = new ArrayList<>(targets.size());
+        try (InputStream in = Files.newInputStream(source)) {
+            for (Path target : targets) {
+                outputs.add(Files.newOutputStream(target));
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (OutputStream out : outputs) {
+                    out.write(buffer, 0, read);
+                }
+                total += read;
+            }
+            return total;
+        } finally {
+            closeAll(outputs);
+        }
+    }
+
+    /**
+     * Resolve a path inside a directory tree, e.g. one taken from a provider's index. Indexes
+     * come from arbitrary repositories, so the result must not lead out of the tree, neither
+     * through {@code ..}, an absolute path nor a symbolic link.
+     *
+     * @param file Path relative to {@code root}, or absolute
+     * @return The real path, or null if it does not exist or lies outside {@code root}
+     */
+    public static Path resolveInside(Path root, Path file) {
+        try {
+            Path real = root.resolve(file).toRealPath();
+            return real.startsWith(root.toRealPath()) ? real : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void closeAll(List<OutputStream> outputs) throws IOException {
+        IOException failure = null;
+        for (OutputStream out : outputs) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static class Progress {
+        private final ProgressListener listener;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong bytesDone = new AtomicLong();
+        private final AtomicLong bytesDiscovered = new AtomicLong();
+        private final AtomicLong filesDone = new AtomicLong();
+        private final AtomicLong filesDiscovered = new AtomicLong();
+        private final Queue<Path> failures = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled;
+
+        Progress(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        void discovered(long bytes) {
+            filesDiscovered.incrementAndGet();
+            bytesDiscovered.addAndGet(bytes);
+        }
+
+        void done(long bytes) {
+            long done = bytesDone.addAndGet(bytes);
+            long files = filesDone.incrementAndGet();
+            if (listener != null) {
+                listener.onProgress(new TreeProgress(files, filesDiscovered.get(), done, bytesDiscovered.get(),
+                                                     (System.nanoTime() - startNanos) / 1_000_000));
+            }
+        }
+
+        void failed(Path path, IOException e) {
+            logger.warn("File operation failed for {}: {}", path, e.toString());
+            failures.add(path);
+        }
+
+        TreeResult toResult() {
+            return new TreeResult(filesDone.get(), bytesDone.get(), new ArrayList<>(failures), cancelled);
+        }
+    }
+
+    private static List<Path> resolveAll(List<Path> dirs, Path entry) {
+        String name = entry.getFileName().toString();
+        List<Path> resolved = new ArrayList<>(dirs.size());
+        for (Path dir : dirs) {
+            resolved.add(dir.resolve(name));
+        }
+        return resolved;
+    }
+
+    // Fork/join tasks are never serialized
+    @SuppressWarnings("serial")
+    private static class CopyDirectoryTask extends RecursiveAction {
+        private final Path source;
+        private final List<Path> targets;
+        private final Progress progress;
+
+        CopyDirectoryTask(Path source, List<Path> targets, Progress progress) {
+            this.source = source;
+            this.targets = targets;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            // Subtasks are forked while the directory is still being listed
+            List<RecursiveAction> forked = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            try {
+                for (Path target : targets) {
+                    Files.createDirectories(target);
+                }
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                    for (Path entry : entries) {
+                        if (progress.cancelled) break;
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class,
+                                                                         LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            RecursiveAction task = new CopyDirectoryTask(entry, resolveAll(targets, entry), progress);
+                            task.fork();
+                            forked.add(task);
+                        } else {
+                            progress.discovered(attrs.size());
+                            batch.add(entry);
+                            if (batch.size() == FILES_PER_TASK) {
+                                RecursiveAction task = new CopyFilesTask(batch, targets, progress);
+                                task.fork();
+                                forked.add(task);
+                                batch = new ArrayList<>();
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                progress.failed(source, e);
+            }
+            if (!batch.isEmpty()) {
+                new CopyFilesTask(batch, targets, progress).invoke();
+            }
+            for (RecursiveAction task : forked) {
+                task.join();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class CopyFilesTask extends RecursiveAction {
+        private final List<Path> files;
+        private final List<Path> targetDirs;
+        private final Progress progress;
+
+        CopyFilesTask(List<Path> files, List<Path> targetDirs, Progress progress) {
+            this.files = files;
+            this.targetDirs = targetDirs;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                if (progress.cancelled) return;
+                try {
+                    progress.done(copyFile(file, resolveAll(targetDirs, file)));
+                } catch (IOException e) {
+                    progress.failed(file, e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class DeleteDirectoryTask extends RecursiveAction {
+        private final Path directory;
+        private final Progress progress;
+
+        DeleteDirectoryTask(Path directory, Progress progress) {
+            this.directory = directory;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> forked = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (progress.cancelled) break;
+                    BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class,
+                                                                     LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        RecursiveAction task = new DeleteDirectoryTask(entry, progress);
+                        task.fork();
+                        forked.add(task);
+                    } else {
+                        progress.discovered(attrs.size());
+                        batch.add(entry);
+                        if (batch.size() == FILES_PER_TASK) {
+                            RecursiveAction task = new DeleteFilesTask(batch, progress);
+                            task.fork();
+                            forked.add(task);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                progress.failed(directory, e);
+            }
+            if (!batch.isEmpty()) {
+                new DeleteFilesTask(batch, progress).invoke();
+            }
+            for (RecursiveAction task : forked) {
+                task.join();
+            }
+            if (progress.cancelled) return;
+            try {
+                Files.deleteIfExists(directory);
+            } catch (DirectoryNotEmptyException e) {
+                // A child could not be deleted and was recorded as failed already
+                logger.debug("Directory not empty after delete: {}", directory);
+            } catch (IOException e) {
+                progress.failed(directory, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class DeleteFilesTask extends RecursiveAction {
+        private final List<Path> files;
+        private final Progress progress;
+
+        DeleteFilesTask(List<Path> files, Progress progress) {
+            this.files = files;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                if (progress.cancelled) return;
+                try {
+                    long size = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).size();
+                    Files.deleteIfExists(file);
+                    progress.done(size);
+                } catch (IOException e) {
+                    progress.failed(file, e);
+                }
+            }
+        }
+    }
+}
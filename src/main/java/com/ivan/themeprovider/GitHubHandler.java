@@ -19,6 +19,19 @@ public class GitHubHandler {
     private static final Logger logger = LoggerFactory.getLogger(GitHubHandler.class);
     private static final String GITHUB_BASE_URL = "https://github.com/";
     
+    private final FileTreeEngine fileTreeEngine;
+    
+    public GitHubHandler() {
+        this(new FileTreeEngine());
+    }
+    
+    /**
+     * @param fileTreeEngine Shared engine used to clean up checkouts
+     */
+    public GitHubHandler(FileTreeEngine fileTreeEngine) {
+        this.fileTreeEngine = fileTreeEngine;
+    }
+    
     /**
      * Progress callback for repository operations
      */
@@ -256,16 +269,9 @@ public class GitHubHandler {
      * Delete a directory and all its contents recursively
      */
     private void deleteDirectory(Path directory) throws IOException {
-        if (Files.exists(directory)) {
-            Files.walk(directory)
-                 .sorted((a, b) -> b.compareTo(a)) // Delete files before directories
-                 .forEach(path -> {
-                     try {
-                         Files.delete(path);
-                     } catch (IOException e) {
-                         logger.warn("Failed to delete: {}", path, e);
-                     }
-                 });
+        FileTreeEngine.TreeResult result = fileTreeEngine.deleteTree(directory, null);
+        if (!result.isSuccess()) {
+            throw new IOException("Failed to delete " + result.getFailures().size() + " entries under " + directory);
         }
     }
     
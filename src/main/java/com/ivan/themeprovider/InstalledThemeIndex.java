@@ -0,0 +1,329 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent index of installed themes, keyed by provider and theme id, so the UI can
+ * tell whether a theme is installed or outdated without scanning customThemes
+ */
+public class InstalledThemeIndex {
+    private static final Logger logger = LoggerFactory.getLogger(InstalledThemeIndex.class);
+    public static final String INDEX_FILE_NAME = "installed_themes.yml";
+
+    /**
+     * Install state of a theme as shown in the catalog
+     */
+    public enum Status { NOT_INSTALLED, INSTALLED, OUTDATED }
+
+    /**
+     * A finished install to record: the theme's source in the provider checkout and its installed
+     * copies, one per customThemes directory
+     */
+    public static class Install {
+        private final String providerId;
+        private final String themeId;
+        private final Path sourceFile;
+        private final List<Path> installedFiles;
+
+        public Install(String providerId, String themeId, Path sourceFile, List<Path> installedFiles) {
+            this.providerId = providerId;
+            this.themeId = themeId;
+            this.sourceFile = sourceFile;
+            this.installedFiles = List.copyOf(installedFiles);
+        }
+    }
+
+    /**
+     * What was installed for a theme and from which source content; immutable, an install replaces it
+     */
+    public static class Entry {
+        // Absolute paths of all copies, one per customThemes directory
+        private final List<String> installedFiles;
+        private final long size;
+        private final String sourceHash;
+        // Source attributes at install time, used to skip hashing while the source is untouched
+        private final long sourceModified;
+        private final long sourceSize;
+
+        public Entry(List<String> installedFiles, long size, String sourceHash, long sourceModified, long sourceSize) {
+            this.installedFiles = List.copyOf(installedFiles);
+            this.size = size;
+            this.sourceHash = sourceHash;
+            this.sourceModified = sourceModified;
+            this.sourceSize = sourceSize;
+        }
+
+        public List<String> getInstalledFiles() { return installedFiles; }
+        public long getSize() { return size; }
+        public String getSourceHash() { return sourceHash; }
+    }
+
+    private final Path indexPath;
+    private final Yaml yaml;
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+    // Hashes of current source files, keyed by path + modification time + size
+    private final Map<String, String> sourceHashes = new ConcurrentHashMap<>();
+
+    public InstalledThemeIndex(Path indexPath) {
+        this.indexPath = indexPath;
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setPrettyFlow(true);
+        this.yaml = new Yaml(options);
+        load();
+    }
+
+    /**
+     * Look up the install state of a theme. Checks that every installed copy exists and, the first
+     * time a source is seen after a provider update or when its file was touched, hashes its
+     * content (a whole tree for packages), so call it off the FX thread. Only reads the index;
+     * safe to call from several threads.
+     *
+     * @param providerId Provider id from the configuration
+     * @param themeId Theme id from the provider index
+     * @param sourceFile Current theme file in the provider checkout, may be null
+     * @return Install status; a theme missing from some of its customThemes directories is outdated
+     */
+    public Status getStatus(String providerId, String themeId, Path sourceFile) {
+        Entry entry = getEntry(providerId, themeId);
+        int copies = entry != null ? existingCopies(entry) : 0;
+        if (copies == 0) {
+            return Status.NOT_INSTALLED;
+        }
+        if (copies < entry.installedFiles.size()) {
+            // Reinstalling restores the missing copies
+            return Status.OUTDATED;
+        }
+        if (sourceFile == null) {
+            return Status.INSTALLED;
+        }
+        if (Files.isDirectory(sourceFile)) {
+            // Theme package: compare the tree signature, computed once per provider update
+            String signature = sourceHashes.computeIfAbsent(sourceFile + "|tree", k -> hashOrNull(sourceFile));
+            return entry.sourceHash.equals(signature) ? Status.INSTALLED : Status.OUTDATED;
+        }
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            long modified = attrs.lastModifiedTime().toMillis();
+            if (modified == entry.sourceModified && attrs.size() == entry.sourceSize) {
+                return Status.INSTALLED;
+            }
+            // Touched (e.g. by a pull) but possibly unchanged: compare content, hashed once per file version
+            String currentHash = sourceHashes.computeIfAbsent(sourceFile + "|" + modified + "|" + attrs.size(),
+                                                              k -> hashOrNull(sourceFile));
+            return entry.sourceHash.equals(currentHash) ? Status.INSTALLED : Status.OUTDATED;
+        } catch (IOException e) {
+            // Source no longer available; the installed copy is still there as far as we know
+            return Status.INSTALLED;
+        }
+    }
+
+    /**
+     * Installed copies still present; themes can be deleted from customThemes by hand
+     */
+    private static int existingCopies(Entry entry) {
+        int copies = 0;
+        for (String file : entry.installedFiles) {
+            if (Files.exists(Paths.get(file))) {
+                copies++;
+            }
+        }
+        return copies;
+    }
+
+    public Entry getEntry(String providerId, String themeId) {
+        Map<String, Entry> themes = entries.get(providerId);
+        return themes != null ? themes.get(themeId) : null;
+    }
+
+    /**
+     * Forget memoized source hashes, e.g. after providers were pulled
+     */
+    public void clearSourceCache() {
+        sourceHashes.clear();
+    }
+
+    /**
+     * Record a successful install and persist the index
+     *
+     * @param sourceFile Theme file or package directory in the provider checkout
+     * @param installedFiles Installed copies, one per customThemes directory
+     */
+    public void recordInstall(String providerId, String themeId, Path sourceFile, List<Path> installedFiles) {
+        recordInstalls(List.of(new Install(providerId, themeId, sourceFile, installedFiles)));
+    }
+
+    /**
+     * Record a batch of successful installs and persist the index once
+     */
+    public void recordInstalls(Collection<Install> installs) {
+        boolean changed = false;
+        for (Install install : installs) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(install.sourceFile, BasicFileAttributes.class);
+                String sourceHash = hash(install.sourceFile);
+                if (attrs.isDirectory()) {
+                    sourceHashes.put(install.sourceFile + "|tree", sourceHash);
+                }
+                List<String> installed = new ArrayList<>();
+                for (Path file : install.installedFiles) {
+                    installed.add(file.toAbsolutePath().toString());
+                }
+                // The copies are identical, so the first one gives the size
+                Entry entry = new Entry(installed, sizeOf(install.installedFiles.get(0)), sourceHash,
+                                        attrs.lastModifiedTime().toMillis(), attrs.size());
+                entries.computeIfAbsent(install.providerId, k -> new ConcurrentHashMap<>()).put(install.themeId, entry);
+                changed = true;
+            } catch (IOException e) {
+                logger.warn("Failed to record install of {}/{}", install.providerId, install.themeId, e);
+            }
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    /**
+     * Forget a theme, e.g. after it was removed from customThemes
+     */
+    public void remove(String providerId, String themeId) {
+        Map<String, Entry> themes = entries.get(providerId);
+        if (themes != null && themes.remove(themeId) != null) {
+            save();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(indexPath)) {
+            Map<String, Object> data = yaml.load(in);
+            if (data == null) return;
+            for (Map.Entry<String, Object> provider : data.entrySet()) {
+                if (!(provider.getValue() instanceof Map)) continue;
+                Map<String, Entry> themes = new ConcurrentHashMap<>();
+                for (Map.Entry<String, Object> theme : ((Map<String, Object>) provider.getValue()).entrySet()) {
+                    if (!(theme.getValue() instanceof Map)) continue;
+                    Map<String, Object> e = (Map<String, Object>) theme.getValue();
+                    List<String> installed = new ArrayList<>();
+                    if (e.get("installed_files") instanceof List) {
+                        for (Object file : (List<Object>) e.get("installed_files")) {
+                            installed.add(String.valueOf(file));
+                        }
+                    }
+                    themes.put(theme.getKey(), new Entry(
+                        installed,
+                        toLong(e.get("size")),
+                        String.valueOf(e.get("source_hash")),
+                        toLong(e.get("source_modified")),
+                        toLong(e.get("source_size"))));
+                }
+                entries.put(provider.getKey(), themes);
+            }
+            logger.debug("Loaded installed theme index from {}", indexPath);
+        } catch (Exception e) {
+            logger.warn("Failed to load installed theme index: {}", indexPath, e);
+        }
+    }
+
+    private synchronized void save() {
+        Map<String, Object> data = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Entry>> provider : entries.entrySet()) {
+            Map<String, Object> themes = new TreeMap<>();
+            for (Map.Entry<String, Entry> theme : provider.getValue().entrySet()) {
+                Entry e = theme.getValue();
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("installed_files", e.installedFiles);
+                m.put("size", e.size);
+                m.put("source_hash", e.sourceHash);
+                m.put("source_modified", e.sourceModified);
+                m.put("source_size", e.sourceSize);
+                themes.put(theme.getKey(), m);
+            }
+            data.put(provider.getKey(), themes);
+        }
+        Path tmp = indexPath.resolveSibling(INDEX_FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(indexPath.getParent());
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                yaml.dump(data, writer);
+            }
+            Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save installed theme index", e);
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static String hashOrNull(Path file) {
+        try {
+            return hash(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long sizeOf(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Files.size(path);
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    /**
+     * Content hash of a file; for a directory, a signature over the relative path, size and
+     * content hash of every file in the tree. Modification times are left out, since a pull
+     * touches them without changing the content.
+     */
+    static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        if (Files.isDirectory(file)) {
+            for (Path p : listFiles(file)) {
+                String line = file.relativize(p).toString().replace('\\', '/') + '\0' + Files.size(p)
+                    + '\0' + hash(p) + '\n';
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+        } else {
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ivan.themeprovider;
+
+/**
+ * Plain entry point for the fat jar. The Java launcher treats a main class extending
+ * {@link javafx.application.Application} specially (it starts the FX toolkit before main
+ * runs), which breaks the headless startup modes and class-path launches of the jar.
+ */
+public final class Launcher {
+    private Launcher() {}
+
+    public static void main(String[] args) {
+        ThemeProviderClient.main(args);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ivan.themeprovider;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe holder that creates its value on first use.
+ * Keeps heavyweight subsystems (flexmark, JGit, on-disk caches) off the startup path.
+ */
+public final class Lazy<T> {
+    private final Supplier<? extends T> factory;
+    private volatile T value;
+
+    private Lazy(Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    public static <T> Lazy<T> of(Supplier<? extends T> factory) {
+        return new Lazy<>(factory);
+    }
+
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.get();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isInitialized() {
+        return value != null;
+    }
+
+    /**
+     * Run the action only if the value was already created, e.g. to shut it down
+     */
+    public void ifInitialized(Consumer<? super T> action) {
+        T result = value;
+        if (result != null) {
+            action.accept(result);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ivan.themeprovider;
+
+import com.ivan.themeprovider.ThemeInstaller.ProviderInfo;
+import com.ivan.themeprovider.model.ThemeIndex;
+import com.vladsch.flexmark.util.ast.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+/**
+ * Prepares provider homepages and theme pages ahead of time on a low-priority pool
+ * so the caches are warm when the user starts browsing: every page is parsed, and
+ * pages the UI cannot show natively are also rendered to HTML for the WebView
+ */
+public class MarkdownPrerenderer {
+    private static final Logger logger = LoggerFactory.getLogger(MarkdownPrerenderer.class);
+
+    private final MarkdownRenderer markdownRenderer;
+    private final Executor executor;
+    private Job currentJob;
+
+    /**
+     * Progress callback for pre-rendering, invoked from pool threads
+     */
+    public interface ProgressListener {
+        void onProgress(int completed, int total);
+        void onComplete(int rendered, int failed, boolean cancelled);
+    }
+
+    /**
+     * Handle for a running pre-render pass
+     */
+    public static class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        /**
+         * Stop rendering pages that have not started yet
+         */
+        public void cancel() {
+            if (completion.isDone()) return;
+            if (cancelled.compareAndSet(false, true)) {
+                synchronized (futures) {
+                    futures.forEach(f -> f.cancel(false));
+                }
+                completion.complete(null);
+            }
+        }
+
+        public boolean isCancelled() { return cancelled.get(); }
+        public boolean isDone() { return completion.isDone(); }
+        public CompletableFuture<Void> getCompletion() { return completion; }
+    }
+
+    /**
+     * @param markdownRenderer Renderer whose caches are filled
+     * @param executor Low-priority executor the pages are rendered on
+     */
+    public MarkdownPrerenderer(MarkdownRenderer markdownRenderer, Executor executor) {
+        this.markdownRenderer = markdownRenderer;
+        this.executor = executor;
+    }
+
+    /**
+     * Render every homepage and theme markdown of the given providers in parallel.
+     * A pass that is still running is cancelled first.
+     *
+     * @param providers Providers with freshly parsed indexes
+     * @param darkMode Styling mode the UI will request
+     * @param nativeSupport Optional test for documents the UI renders without HTML, given the
+     *                      document and its directory; those pages are only parsed
+     * @param listener Optional progress listener
+     * @return Handle that can be used to cancel the pass
+     */
+    public synchronized Job prerender(List<ProviderInfo> providers, boolean darkMode,
+                                      BiPredicate<Document, Path> nativeSupport, ProgressListener listener) {
+        if (currentJob != null) {
+            currentJob.cancel();
+        }
+        Job job = new Job();
+        currentJob = job;
+
+        List<Page> pages = collectPages(providers);
+        int total = pages.size();
+        if (total == 0) {
+            if (listener != null) listener.onComplete(0, 0, false);
+            job.completion.complete(null);
+            return job;
+        }
+
+        logger.info("Pre-rendering {} markdown pages from {} providers", total, providers.size());
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        synchronized (job.futures) {
+            for (Page page : pages) {
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    if (job.isCancelled()) return;
+                    try {
+                        Path baseDir = page.markdownFile.getParent();
+                        Document document = markdownRenderer.parseFile(page.markdownFile);
+                        if (document == null) {
+                            failed.incrementAndGet();
+                        } else if ((nativeSupport == null || !nativeSupport.test(document, baseDir))
+                                   && markdownRenderer.renderDocument(page.markdownFile, page.title, darkMode, baseDir) == null) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        logger.debug("Pre-render failed for {}", page.markdownFile, e);
+                    }
+                    int done = completed.incrementAndGet();
+                    if (job.isCancelled()) return;
+                    if (listener != null) listener.onProgress(done, total);
+                    if (done == total) {
+                        logger.info("Pre-rendered {} pages ({} failed)", total - failed.get(), failed.get());
+                        if (listener != null) listener.onComplete(total - failed.get(), failed.get(), false);
+                        job.completion.complete(null);
+                    }
+                }, null);
+                job.futures.add(task);
+                executor.execute(task);
+            }
+        }
+        job.completion.whenComplete((v, e) -> {
+            if (job.isCancelled() && listener != null) {
+                listener.onComplete(completed.get() - failed.get(), failed.get(), true);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Cancel the running pass, if any
+     */
+    public synchronized void cancel() {
+        if (currentJob != null) {
+            currentJob.cancel();
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+    }
+
+    /**
+     * Gather the pages in the same form the UI renders them: homepages titled with the
+     * provider name, theme pages with the theme name, both based at their own directory
+     */
+    private List<Page> collectPages(List<ProviderInfo> providers) {
+        List<Page> pages = new ArrayList<>();
+        for (ProviderInfo provider : providers) {
+            Path homepage = provider.getHomepagePath();
+            if (homepage != null && Files.isRegularFile(homepage)) {
+                pages.add(new Page(homepage, provider.getDisplayName()));
+            }
+            for (Map.Entry<String, ThemeIndex.ThemeEntry> entry : provider.getIndex().getPresentThemes().entrySet()) {
+                String markdownPath = entry.getValue().getMarkdownPath();
+                if (markdownPath == null) continue;
+                Path markdownFile = provider.getProviderDir().resolve(markdownPath);
+                if (Files.isRegularFile(markdownFile)) {
+                    pages.add(new Page(markdownFile, entry.getValue().getDisplayName(entry.getKey())));
+                }
+            }
+        }
+        return pages;
+    }
+
+    private record Page(Path markdownFile, String title) {}
+}
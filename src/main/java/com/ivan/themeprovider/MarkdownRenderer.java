@@ -2,6 +2,7 @@ package com.ivan.themeprovider;
 
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.ext.tables.TablesExtension;
@@ -11,10 +12,23 @@ import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
 
 /**
  * Service for rendering Markdown files to HTML
@@ -22,10 +36,52 @@ import java.util.Arrays;
 public class MarkdownRenderer {
     private static final Logger logger = LoggerFactory.getLogger(MarkdownRenderer.class);
     
+    /**
+     * Bump whenever parser options, CSS or the document template change so cached documents are not reused
+     */
+    public static final int RENDERER_VERSION = 1;
+    public static final long DEFAULT_MEMORY_CACHE_BYTES = 16L * 1024 * 1024;
+    public static final long DEFAULT_DOCUMENT_CACHE_BYTES = 16L * 1024 * 1024;
+    
+    // Document template, split around the CSS and the rendered body so it can be streamed
+    private static final String DOCUMENT_HEAD = """
+        <!DOCTYPE html>
+        <html lang="en">
+        <head>
+            <meta charset="UTF-8">
+            <meta name="viewport" content="width=device-width, initial-scale=1.0">
+            <title>%s</title>
+            %s
+            <style>""";
+    private static final String DOCUMENT_BODY_START = "</style>\n</head>\n<body>\n    <div class=\"markdown-body\">\n        ";
+    private static final String DOCUMENT_FOOTER = "\n    </div>\n</body>\n</html>\n";
+    
     private final Parser parser;
     private final HtmlRenderer renderer;
+    private final RenderCache renderCache;
+    private final MemoryCache<String> memoryCache;
+    private final MemoryCache<Document> documentCache;
     
     public MarkdownRenderer() {
+        this(null);
+    }
+    
+    /**
+     * @param renderCache Optional on-disk cache for complete HTML documents
+     */
+    public MarkdownRenderer(RenderCache renderCache) {
+        this(renderCache, DEFAULT_MEMORY_CACHE_BYTES);
+    }
+    
+    /**
+     * @param renderCache Optional on-disk cache for complete HTML documents
+     * @param memoryCacheBytes Upper bound for HTML kept in memory, 0 disables the in-memory cache
+     */
+    public MarkdownRenderer(RenderCache renderCache, long memoryCacheBytes) {
+        this.renderCache = renderCache;
+        this.memoryCache = new MemoryCache<>(memoryCacheBytes, MarkdownRenderer::sizeOf);
+        this.documentCache = new MemoryCache<>(DEFAULT_DOCUMENT_CACHE_BYTES, MarkdownRenderer::sizeOf);
+        
         // Configure markdown options
         MutableDataSet options = new MutableDataSet();
         
@@ -57,14 +113,235 @@ public class MarkdownRenderer {
         }
         
         try {
+            CacheKey key = CacheKey.of(markdownFile, "");
+            String cached = memoryCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
             String markdownContent = Files.readString(markdownFile);
-            return renderString(markdownContent);
+            String html = renderString(markdownContent);
+            memoryCache.put(key, html);
+            return html;
+        } catch (IOException e) {
+            logger.error("Failed to read markdown file: {}", markdownFile, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Render a markdown file to a complete HTML document, reusing the cached document when
+     * the same content was already rendered with the same title, base and mode
+     * 
+     * @param markdownFile Path to the markdown file
+     * @param title The document title
+     * @param darkMode Whether to use dark mode styling
+     * @param baseDir Optional base directory for resolving relative assets
+     * @return Complete HTML document or null if the file could not be read
+     */
+    public String renderDocument(Path markdownFile, String title, boolean darkMode, Path baseDir) {
+        if (!Files.exists(markdownFile)) {
+            logger.warn("Markdown file does not exist: {}", markdownFile);
+            return null;
+        }
+        
+        try {
+            CacheKey memoryKey = CacheKey.of(markdownFile,
+                (darkMode ? "dark" : "light") + '\0' + title + '\0' + (baseDir != null ? baseDir.toUri() : ""));
+            String remembered = memoryCache.get(memoryKey);
+            if (remembered != null) {
+                return remembered;
+            }
+            
+            byte[] content = Files.readAllBytes(markdownFile);
+            String cacheKey = null;
+            if (renderCache != null) {
+                cacheKey = createCacheKey(content, title, darkMode, baseDir);
+                String cached = renderCache.get(cacheKey);
+                if (cached != null) {
+                    logger.debug("Render cache hit for {}", markdownFile);
+                    memoryCache.put(memoryKey, cached);
+                    return cached;
+                }
+            }
+            
+            String body = renderString(new String(content, StandardCharsets.UTF_8));
+            String html = createHtmlDocument(body, title, darkMode, baseDir);
+            if (cacheKey != null) {
+                renderCache.put(cacheKey, html);
+            }
+            memoryCache.put(memoryKey, html);
+            return html;
         } catch (IOException e) {
             logger.error("Failed to read markdown file: {}", markdownFile, e);
             return null;
         }
     }
     
+    /**
+     * Render a markdown file as a complete HTML document directly into an output file.
+     * The document head, CSS, rendered body and footer are written through a buffered
+     * writer instead of being assembled into intermediate strings; a cached document is
+     * copied as-is. Output goes to a temporary file that replaces the destination only
+     * once it is complete.
+     * 
+     * @param markdownFile Path to the markdown file
+     * @param title The document title
+     * @param darkMode Whether to use dark mode styling
+     * @param baseDir Optional base directory for resolving relative assets
+     * @param outputFile Destination HTML file, replaced if it exists
+     * @return true if the document was written
+     */
+    public boolean renderDocumentTo(Path markdownFile, String title, boolean darkMode, Path baseDir, Path outputFile) {
+        if (!Files.exists(markdownFile)) {
+            logger.warn("Markdown file does not exist: {}", markdownFile);
+            return false;
+        }
+        
+        Path tmp = null;
+        try {
+            // One read feeds both the cache key and the parser, so they always describe the same content
+            byte[] content = Files.readAllBytes(markdownFile);
+            // Written next to the destination and moved over it, so a failed render never
+            // replaces a good document with a truncated one
+            tmp = Files.createTempFile(outputFile.toAbsolutePath().getParent(), outputFile.getFileName().toString(), ".tmp");
+            String cacheKey = null;
+            if (renderCache != null) {
+                cacheKey = createCacheKey(content, title, darkMode, baseDir);
+                if (renderCache.copyTo(cacheKey, tmp)) {
+                    logger.debug("Render cache hit for {}", markdownFile);
+                    replace(tmp, outputFile);
+                    return true;
+                }
+            }
+            
+            Node document = parser.parse(new String(content, StandardCharsets.UTF_8));
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(documentHead(title, darkMode, baseDir));
+                renderer.render(document, writer);
+                writer.write(DOCUMENT_FOOTER);
+            }
+            if (cacheKey != null) {
+                renderCache.putFile(cacheKey, tmp);
+            }
+            replace(tmp, outputFile);
+            logger.debug("Streamed rendered markdown {} -> {}", markdownFile, outputFile);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to render markdown file {} to {}", markdownFile, outputFile, e);
+            return false;
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
+        }
+    }
+    
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Build a content-addressed cache key: hash of the markdown and document parameters,
+     * followed by the styling mode and renderer version
+     */
+    private static String createCacheKey(byte[] content, String title, boolean darkMode, Path baseDir) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return createCacheKey(digest, title, darkMode, baseDir);
+    }
+    
+    /**
+     * @param digest Digest that has already consumed the markdown content
+     */
+    private static String createCacheKey(MessageDigest digest, String title, boolean darkMode, Path baseDir) {
+        digest.update((byte) 0);
+        digest.update(String.valueOf(title).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(baseDir != null ? baseDir.toUri().toString().getBytes(StandardCharsets.UTF_8) : new byte[0]);
+        return HexFormat.of().formatHex(digest.digest())
+            + (darkMode ? "-dark" : "-light")
+            + "-r" + RENDERER_VERSION;
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Hit/miss statistics of the in-memory render cache
+     */
+    public CacheStats getCacheStats() {
+        return memoryCache.stats();
+    }
+    
+    /**
+     * Hit/miss statistics of the parsed document cache
+     */
+    public CacheStats getDocumentCacheStats() {
+        return documentCache.stats();
+    }
+    
+    /**
+     * Drop all documents and parsed ASTs held in memory
+     */
+    public void clearMemoryCache() {
+        memoryCache.clear();
+        documentCache.clear();
+    }
+    
+    /**
+     * Parse a markdown file into its flexmark AST, for renderers that build something other than HTML.
+     * Parsed files are kept in memory until they change; callers must treat the AST as read-only.
+     * 
+     * @param markdownFile Path to the markdown file
+     * @return The parsed document or null if the file could not be read
+     */
+    public Document parseFile(Path markdownFile) {
+        try {
+            CacheKey key = CacheKey.of(markdownFile, "");
+            Document cached = documentCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            Document document;
+            try (BufferedReader reader = Files.newBufferedReader(markdownFile, StandardCharsets.UTF_8)) {
+                document = parser.parseReader(reader);
+            }
+            documentCache.put(key, document);
+            return document;
+        } catch (IOException e) {
+            logger.error("Failed to read markdown file: {}", markdownFile, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Find the first image of a markdown file, e.g. to use it as a preview
+     * 
+     * @param markdownFile Path to the markdown file
+     * @return The image URL as written in the file, or null if there is none or the file could not be read
+     */
+    public String findFirstImage(Path markdownFile) {
+        Document document = parseFile(markdownFile);
+        if (document == null) {
+            return null;
+        }
+        for (Node node : document.getDescendants()) {
+            if (node instanceof com.vladsch.flexmark.ast.Image) {
+                return ((com.vladsch.flexmark.ast.Image) node).getUrl().unescape();
+            }
+        }
+        return null;
+    }
+    
     /**
      * Render markdown string to HTML
      * 
@@ -106,26 +383,15 @@ public class MarkdownRenderer {
      * Create a complete HTML document with optional base href for resolving relative assets
      */
     public String createHtmlDocument(String htmlContent, String title, boolean darkMode, Path baseDir) {
-        String cssStyles = getCssStyles(darkMode);
+        return documentHead(title, darkMode, baseDir) + htmlContent + DOCUMENT_FOOTER;
+    }
+    
+    /**
+     * Everything up to the rendered body: head, inlined CSS and the opening body container
+     */
+    private String documentHead(String title, boolean darkMode, Path baseDir) {
         String baseTag = baseDir != null ? "<base href=\"" + baseDir.toUri().toString() + "\">" : "";
-        
-        return """
-            <!DOCTYPE html>
-            <html lang="en">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>%s</title>
-                %s
-                <style>%s</style>
-            </head>
-            <body>
-                <div class="markdown-body">
-                    %s
-                </div>
-            </body>
-            </html>
-            """.formatted(title, baseTag, cssStyles, htmlContent);
+        return DOCUMENT_HEAD.formatted(title, baseTag) + getCssStyles(darkMode) + DOCUMENT_BODY_START;
     }
     
     /**
@@ -310,4 +576,104 @@ public class MarkdownRenderer {
         int lastDotIndex = fileName.lastIndexOf('.');
         return lastDotIndex > 0 ? fileName.substring(0, lastDotIndex) : fileName;
     }
-}
\ No newline at end of file
+
+    /**
+     * Snapshot of in-memory render cache statistics
+     */
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final int entries;
+        private final long bytes;
+        
+        public CacheStats(long hits, long misses, int entries, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+        
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public int getEntries() { return entries; }
+        public long getBytes() { return bytes; }
+        
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.2f, entries=%d, bytes=%d}",
+                                 hits, misses, getHitRate(), entries, bytes);
+        }
+    }
+    
+    /**
+     * Identifies a rendering of a file; a changed modification time or size invalidates it
+     */
+    private record CacheKey(Path path, long modified, long size, String variant) {
+        static CacheKey of(Path file, String variant) throws IOException {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return new CacheKey(file.toAbsolutePath().normalize(), attrs.lastModifiedTime().toMillis(),
+                                attrs.size(), variant);
+        }
+    }
+    
+    private static long sizeOf(String html) {
+        // Strings are stored as at most two bytes per char
+        return (long) html.length() * 2;
+    }
+    
+    private static long sizeOf(Document document) {
+        // The source text plus the nodes pointing into it; nodes cost roughly twice the text
+        return (long) document.getChars().length() * 6;
+    }
+    
+    /**
+     * LRU map of rendered HTML or parsed documents bounded by their approximate size,
+     * shared between the UI and installer threads
+     */
+    private static class MemoryCache<V> {
+        private final long maxBytes;
+        private final ToLongFunction<V> sizer;
+        private final LinkedHashMap<CacheKey, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalBytes;
+        private long hits;
+        private long misses;
+        
+        MemoryCache(long maxBytes, ToLongFunction<V> sizer) {
+            this.maxBytes = maxBytes;
+            this.sizer = sizer;
+        }
+        
+        synchronized V get(CacheKey key) {
+            V value = entries.get(key);
+            if (value != null) hits++; else misses++;
+            return value;
+        }
+        
+        synchronized void put(CacheKey key, V value) {
+            long size = sizer.applyAsLong(value);
+            if (size > maxBytes) return;
+            V previous = entries.put(key, value);
+            if (previous != null) totalBytes -= sizer.applyAsLong(previous);
+            totalBytes += size;
+            Iterator<Map.Entry<CacheKey, V>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                totalBytes -= sizer.applyAsLong(it.next().getValue());
+                it.remove();
+            }
+        }
+        
+        synchronized void clear() {
+            entries.clear();
+            totalBytes = 0;
+        }
+        
+        synchronized CacheStats stats() {
+            return new CacheStats(hits, misses, entries.size(), totalBytes);
+        }
+    }
+}
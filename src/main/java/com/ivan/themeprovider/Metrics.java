@@ -0,0 +1,150 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Named counters and latency histograms for the running session.
+ * Metrics are created on first use and may be updated from any thread. At the end of a session
+ * they are appended to a CSV file, so latencies can be compared across releases.
+ */
+public final class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String LOG_FILE_NAME = "ui_metrics.csv";
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Monotonic event count
+     */
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() { value.incrementAndGet(); }
+        public long get() { return value.get(); }
+
+        @Override
+        public String toString() {
+            return String.valueOf(get());
+        }
+    }
+
+    /**
+     * Millisecond durations in power-of-two buckets (up to 1, 2, 4, ... 32768 ms and above).
+     * Percentiles are reported as the upper bound of their bucket.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 17;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long millis) {
+            long value = Math.max(0, millis);
+            buckets.incrementAndGet(bucketOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        public long getCount() { return count.get(); }
+        public long getMax() { return max.get(); }
+
+        public long getMean() {
+            long n = count.get();
+            return n > 0 ? sum.get() / n : 0;
+        }
+
+        /**
+         * @param quantile Between 0 and 1, e.g. 0.99
+         * @return Upper bound in milliseconds of the bucket holding the quantile, capped at the maximum
+         */
+        public long getPercentile(double quantile) {
+            long n = count.get();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(1L << i, getMax());
+                }
+            }
+            return getMax();
+        }
+
+        private static int bucketOf(long millis) {
+            // Smallest i with millis <= 2^i
+            int bucket = millis <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(millis - 1);
+            return Math.min(bucket, BUCKETS - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{count=%d, mean=%dms, p50=%dms, p90=%dms, p99=%dms, max=%dms}",
+                                 getCount(), getMean(), getPercentile(0.5), getPercentile(0.9),
+                                 getPercentile(0.99), getMax());
+        }
+    }
+
+    /**
+     * One line per metric, in name order
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(counters).forEach((name, counter) -> sb.append(System.lineSeparator())
+            .append("  ").append(name).append(" = ").append(counter));
+        new TreeMap<>(histograms).forEach((name, histogram) -> sb.append(System.lineSeparator())
+            .append("  ").append(name).append(' ').append(histogram));
+        return sb.toString();
+    }
+
+    /**
+     * Append one row per metric to the given CSV file; counters only fill the count column
+     */
+    public void report(Path csvFile) {
+        String prefix = Instant.now() + "," + StartupTimer.getVersion() + ",";
+        StringBuilder rows = new StringBuilder();
+        new TreeMap<>(counters).forEach((name, counter) -> rows.append(prefix).append(name).append(',')
+            .append(counter.get()).append(",,,,,").append(System.lineSeparator()));
+        new TreeMap<>(histograms).forEach((name, h) -> rows.append(prefix).append(name).append(',')
+            .append(h.getCount()).append(',').append(h.getMean()).append(',').append(h.getPercentile(0.5)).append(',')
+            .append(h.getPercentile(0.9)).append(',').append(h.getPercentile(0.99)).append(',').append(h.getMax())
+            .append(System.lineSeparator()));
+        if (rows.length() == 0) return;
+        try {
+            if (!Files.exists(csvFile)) {
+                Files.writeString(csvFile, "timestamp,version,metric,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms"
+                                  + System.lineSeparator(), StandardCharsets.UTF_8,
+                                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            Files.writeString(csvFile, rows, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Could not write metrics to {}: {}", csvFile, e.getMessage());
+        }
+    }
+}
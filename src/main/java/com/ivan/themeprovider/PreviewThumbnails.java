@@ -0,0 +1,213 @@
+package com.ivan.themeprovider;
+
+import com.ivan.themeprovider.ThemeInstaller.ProviderInfo;
+import com.ivan.themeprovider.model.ThemeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * Small preview images of themes for the catalog grid.
+ * The preview is the theme's {@code preview} image, or else the first local image of its markdown.
+ * It is decoded with subsampling, scaled down and stored as a PNG in an on-disk cache, so later
+ * sessions only read the small file. Safe to call from several threads.
+ */
+public class PreviewThumbnails {
+    private static final Logger logger = LoggerFactory.getLogger(PreviewThumbnails.class);
+
+    public static final int THUMBNAIL_WIDTH = 320;
+    public static final int THUMBNAIL_HEIGHT = 200;
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    // Part of the cache key; bump when the scaling changes
+    private static final int THUMBNAIL_VERSION = 1;
+
+    private final RenderCache cache;
+    private final MarkdownRenderer markdownRenderer;
+
+    public PreviewThumbnails(RenderCache cache, MarkdownRenderer markdownRenderer) {
+        this.cache = cache;
+        this.markdownRenderer = markdownRenderer;
+    }
+
+    /**
+     * Get the thumbnail of a theme, creating it on a cache miss
+     *
+     * @return The cached PNG, or null if the theme has no readable preview image
+     */
+    public Path getThumbnail(ProviderInfo provider, ThemeIndex.ThemeEntry entry) {
+        Path source = findPreviewImage(provider, entry);
+        return source != null ? getThumbnail(source) : null;
+    }
+
+    /**
+     * Locate the preview image of a theme without decoding it
+     *
+     * @return The local image file, or null if the theme has none
+     */
+    public Path findPreviewImage(ProviderInfo provider, ThemeIndex.ThemeEntry entry) {
+        Path providerDir = provider.getProviderDir();
+        if (entry.getPreview() != null && !entry.getPreview().isEmpty()) {
+            Path preview = regularFileInside(providerDir, providerDir.resolve(entry.getPreview()));
+            if (preview != null) {
+                return preview;
+            }
+            logger.debug("Preview image not found in {}: {}", providerDir, entry.getPreview());
+        }
+        if (entry.getMarkdownPath() == null || entry.getMarkdownPath().isEmpty()) {
+            return null;
+        }
+        Path markdownFile = regularFileInside(providerDir, providerDir.resolve(entry.getMarkdownPath()));
+        if (markdownFile == null) {
+            return null;
+        }
+        String url = markdownRenderer.findFirstImage(markdownFile);
+        return url != null ? resolveLocalImage(url, markdownFile.getParent(), providerDir) : null;
+    }
+
+    /**
+     * Get the thumbnail of an image file, creating it on a cache miss
+     *
+     * @return The cached PNG, or null if the image could not be decoded
+     */
+    public Path getThumbnail(Path source) {
+        String key;
+        try {
+            key = createCacheKey(source);
+        } catch (IOException e) {
+            logger.debug("Preview image not readable: {}", source, e);
+            return null;
+        }
+        Path cached = cache.getFile(key);
+        if (cached != null) {
+            return cached;
+        }
+        BufferedImage thumbnail = decodeScaled(source, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+        if (thumbnail == null) {
+            return null;
+        }
+        Path tmp = null;
+        try {
+            Files.createDirectories(cache.getCacheDir());
+            tmp = Files.createTempFile(cache.getCacheDir(), "thumbnail", ".tmp");
+            ImageIO.write(thumbnail, "png", tmp.toFile());
+            cache.putFile(key, tmp);
+        } catch (IOException e) {
+            logger.warn("Failed to write thumbnail of {}", source, e);
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
+        }
+        return cache.getFile(key);
+    }
+
+    /**
+     * Decode an image at reduced resolution and scale it to fit the given box, keeping its aspect ratio.
+     * Large images are subsampled while decoding, so they never exist in memory at full size.
+     *
+     * @return The scaled image or null if the file has no ImageIO reader or could not be decoded
+     */
+    static BufferedImage decodeScaled(Path source, int maxWidth, int maxHeight) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.debug("No image reader for {}", source);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Keep twice the target resolution for the final smooth scaling step
+                int step = Math.max(1, Math.min(width / (2 * maxWidth), height / (2 * maxHeight)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scaleToFit(reader.read(0, param), maxWidth, maxHeight);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not decode preview image {}: {}", source, e.toString());
+            return null;
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage image, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Only relative paths are followed: images on the web are not downloaded for previews,
+     * and absolute {@code file:} URIs could point anywhere on the machine
+     */
+    private static Path resolveLocalImage(String url, Path baseDir, Path providerDir) {
+        try {
+            URI uri = new URI(url);
+            if (uri.isAbsolute() || uri.getPath() == null || uri.getPath().isEmpty()) {
+                return null;
+            }
+            return regularFileInside(providerDir, baseDir.resolve(uri.getPath()));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            logger.debug("Invalid image URL {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return The real path of the file, or null if it is missing, not a regular file or outside the provider
+     */
+    private static Path regularFileInside(Path providerDir, Path file) {
+        Path real = FileTreeEngine.resolveInside(providerDir, file);
+        return real != null && Files.isRegularFile(real) ? real : null;
+    }
+
+    /**
+     * Hash of the image location, its size and modification time and the thumbnail parameters,
+     * so an edited image gets a new thumbnail
+     */
+    private static String createCacheKey(Path source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        String identity = String.join("\n", source.toAbsolutePath().normalize().toUri().toString(),
+                                      String.valueOf(attributes.size()),
+                                      String.valueOf(attributes.lastModifiedTime().toMillis()),
+                                      THUMBNAIL_WIDTH + "x" + THUMBNAIL_HEIGHT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)))
+                + "-t" + THUMBNAIL_VERSION;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
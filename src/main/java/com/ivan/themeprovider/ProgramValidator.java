@@ -6,6 +6,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +20,11 @@ public class ProgramValidator {
     private static final String CUSTOM_THEMES_DIR = "customThemes";
     private static final String THEME_PROVIDERS_DIR = "themeProviders";
     
+    // Validation results per program directory, dropped whenever the directory changes
+    private static final Map<Path, ValidationResult> validationCache = new ConcurrentHashMap<>();
+    private static final Map<Path, Long> changeCounts = new ConcurrentHashMap<>();
+    private static final DirectoryWatcher watcher = new DirectoryWatcher("program-dirs");
+    
     /**
      * Validation result containing the status and paths
      */
@@ -129,6 +136,44 @@ public class ProgramValidator {
         }
     }
     
+    /**
+     * Validate a program directory, reusing the previous result while the directory is unchanged.
+     * The directory is watched and its cached result is discarded on any change; if it cannot be
+     * watched the result is not cached.
+     * 
+     * @param directory The directory to validate
+     * @return ValidationResult with status and found paths
+     */
+    public static ValidationResult getValidation(Path directory) {
+        Path key = directory.toAbsolutePath().normalize();
+        ValidationResult cached = validationCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Register before validating so changes made while validating are not missed
+        boolean watched = Files.isDirectory(key)
+            && (watcher.isWatching(key) || watcher.register(key, changed -> invalidate(key)));
+        long changesBefore = changeCounts.getOrDefault(key, 0L);
+        ValidationResult result = validateProgramDirectory(key);
+        // Only cache if nothing changed while validating (including directories created by validation)
+        if (watched && changeCounts.getOrDefault(key, 0L) == changesBefore) {
+            validationCache.put(key, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Drop the cached validation result of a directory
+     */
+    public static void invalidate(Path directory) {
+        Path key = directory.toAbsolutePath().normalize();
+        changeCounts.merge(key, 1L, Long::sum);
+        if (validationCache.remove(key) != null) {
+            logger.debug("Program directory changed, validation invalidated: {}", directory);
+        }
+    }
+    
     /**
      * Get the theme providers directory for a validated program directory
      */
@@ -0,0 +1,236 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed on-disk cache of rendered files (HTML documents by default) with
+ * size-bounded LRU eviction
+ */
+public class RenderCache {
+    private static final Logger logger = LoggerFactory.getLogger(RenderCache.class);
+    private static final String DEFAULT_EXTENSION = ".html";
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final String extension;
+    // Access-ordered: eldest entry is the least recently used
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public RenderCache(Path cacheDir) {
+        this(cacheDir, DEFAULT_MAX_BYTES);
+    }
+
+    public RenderCache(Path cacheDir, long maxBytes) {
+        this(cacheDir, maxBytes, DEFAULT_EXTENSION);
+    }
+
+    /**
+     * @param extension File extension of the cached files, e.g. {@code ".png"}
+     */
+    public RenderCache(Path cacheDir, long maxBytes, String extension) {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        this.extension = extension;
+        loadEntries();
+    }
+
+    /**
+     * Rebuild the LRU order from the files on disk, oldest access first
+     */
+    private void loadEntries() {
+        try {
+            Files.createDirectories(cacheDir);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(cacheDir)) {
+                files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(extension))
+                    .sorted(Comparator.comparing(RenderCache::lastModified))
+                    .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                entries.put(name.substring(0, name.length() - extension.length()), size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+            logger.debug("Render cache loaded {} entries ({} bytes) from {}", entries.size(), totalBytes, cacheDir);
+        } catch (IOException e) {
+            logger.warn("Failed to load render cache from {}", cacheDir, e);
+        }
+    }
+
+    /**
+     * Look up a cached document
+     *
+     * @param key Cache key
+     * @return Cached HTML or null on a miss
+     */
+    public synchronized String get(String key) {
+        // get() rather than containsKey() so a hit moves the entry to the recently used end
+        if (entries.get(key) == null) {
+            return null;
+        }
+        Path file = fileFor(key);
+        try {
+            String html = Files.readString(file, StandardCharsets.UTF_8);
+            // Persist the access so LRU order survives restarts
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return html;
+        } catch (IOException e) {
+            logger.debug("Dropping unreadable render cache entry: {}", file, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store a document under the given key, evicting least recently used entries beyond the size bound
+     */
+    public synchronized void put(String key, String html) {
+        Path file = fileFor(key);
+        Path tmp = cacheDir.resolve(key + ".tmp");
+        try {
+            Files.createDirectories(cacheDir);
+            Files.writeString(tmp, html, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            track(key, Files.size(file));
+        } catch (IOException e) {
+            logger.warn("Failed to write render cache entry: {}", file, e);
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Copy a cached document to the target file without loading it into memory
+     *
+     * @return true on a hit, false if the key is not cached
+     */
+    public synchronized boolean copyTo(String key, Path target) {
+        // get() rather than containsKey() so a hit moves the entry to the recently used end
+        if (entries.get(key) == null) {
+            return false;
+        }
+        Path file = fileFor(key);
+        try {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            logger.debug("Dropping missing render cache entry: {}", file);
+            remove(key);
+            return false;
+        } catch (IOException e) {
+            logger.warn("Failed to copy render cache entry {} to {}", file, target, e);
+            return false;
+        }
+    }
+
+    /**
+     * Look up a cached file for callers that read it themselves
+     *
+     * @return The cached file or null on a miss
+     */
+    public synchronized Path getFile(String key) {
+        // get() rather than containsKey() so a hit moves the entry to the recently used end
+        if (entries.get(key) == null) {
+            return null;
+        }
+        Path file = fileFor(key);
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return file;
+        } catch (IOException e) {
+            logger.debug("Dropping missing render cache entry: {}", file);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store an already rendered document file under the given key
+     */
+    public synchronized void putFile(String key, Path source) {
+        Path file = fileFor(key);
+        Path tmp = cacheDir.resolve(key + ".tmp");
+        try {
+            Files.createDirectories(cacheDir);
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            track(key, Files.size(file));
+        } catch (IOException e) {
+            logger.warn("Failed to write render cache entry: {}", file, e);
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Remove all cached documents
+     */
+    public synchronized void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            remove(key);
+        }
+    }
+
+    public synchronized long getTotalBytes() { return totalBytes; }
+
+    public synchronized int size() { return entries.size(); }
+
+    public Path getCacheDir() { return cacheDir; }
+
+    private void track(String key, long size) {
+        Long previous = entries.put(key, size);
+        if (previous != null) totalBytes -= previous;
+        totalBytes += size;
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(fileFor(eldest.getKey()));
+            } catch (IOException e) {
+                logger.debug("Failed to evict render cache entry: {}", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            logger.debug("Failed to delete render cache entry: {}", key, e);
+        }
+    }
+
+    private Path fileFor(String key) {
+        return cacheDir.resolve(key + extension);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ivan.themeprovider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long after JVM start each startup phase was reached.
+ * The phases of every launch are appended to a CSV file so time-to-first-frame and
+ * time-to-interactive can be compared across releases.
+ */
+public final class StartupTimer {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimer.class);
+
+    public static final String MAIN = "main";
+    public static final String CONFIG_LOADED = "config-loaded";
+    public static final String WINDOW_SHOWN = "window-shown";
+    public static final String FIRST_FRAME = "first-frame";
+    public static final String INTERACTIVE = "interactive";
+    private static final String[] PHASES = {MAIN, CONFIG_LOADED, WINDOW_SHOWN, FIRST_FRAME, INTERACTIVE};
+
+    public static final String LOG_FILE_NAME = "startup_times.csv";
+
+    private static final long JVM_START_MILLIS = ProcessHandle.current().info().startInstant()
+        .map(Instant::toEpochMilli).orElseGet(System::currentTimeMillis);
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimer() {}
+
+    /**
+     * Record that a phase was reached; only the first call per phase counts
+     */
+    public static synchronized void mark(String phase) {
+        phases.putIfAbsent(phase, System.currentTimeMillis() - JVM_START_MILLIS);
+    }
+
+    /**
+     * @return Milliseconds from JVM start to the phase, or -1 if it was not reached
+     */
+    public static synchronized long getMillis(String phase) {
+        return phases.getOrDefault(phase, -1L);
+    }
+
+    /**
+     * Log the phases and append them to the given CSV file. Only the first call reports.
+     */
+    public static void report(Path csvFile) {
+        String line;
+        synchronized (StartupTimer.class) {
+            if (reported) return;
+            reported = true;
+            logger.info("Startup: first frame after {} ms, interactive after {} ms {}",
+                        getMillis(FIRST_FRAME), getMillis(INTERACTIVE), phases);
+            StringBuilder sb = new StringBuilder();
+            sb.append(Instant.now()).append(',').append(getVersion()).append(',')
+              .append(System.getProperty("java.version"));
+            for (String phase : PHASES) {
+                sb.append(',').append(getMillis(phase));
+            }
+            line = sb.append(System.lineSeparator()).toString();
+        }
+        try {
+            if (!Files.exists(csvFile)) {
+                Files.writeString(csvFile, "timestamp,version,java," + String.join(",", PHASES) + System.lineSeparator(),
+                                  StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            Files.writeString(csvFile, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("Could not write startup times to {}: {}", csvFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Implementation-Version of the jar, or "dev" when running from classes
+     */
+    public static String getVersion() {
+        String version = StartupTimer.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+}
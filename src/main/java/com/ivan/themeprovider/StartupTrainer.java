@@ -0,0 +1,289 @@
+package com.ivan.themeprovider;
+
+import com.ivan.themeprovider.ThemeInstaller.ProviderInfo;
+import com.ivan.themeprovider.model.ThemeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Headless startup workloads for AppCDS (class data sharing).
+ * <ul>
+ *   <li>{@code --cds-train} runs the provider list, catalog and markdown paths of a normal
+ *       session without a window, so a JVM started with {@code -XX:ArchiveClassesAtExit}
+ *       records the classes they load.</li>
+ *   <li>{@code --measure-startup} runs the same workload and prints the time from JVM start.</li>
+ *   <li>{@code --cds-benchmark <archive>} launches the measurement with and without the
+ *       archive and compares the results.</li>
+ * </ul>
+ */
+public final class StartupTrainer {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTrainer.class);
+
+    public static final String TRAIN_FLAG = "--cds-train";
+    public static final String MEASURE_FLAG = "--measure-startup";
+    public static final String BENCHMARK_FLAG = "--cds-benchmark";
+    private static final String RESULT_PREFIX = "startup-ms=";
+    private static final int BENCHMARK_RUNS = 3;
+    private static final long CHILD_TIMEOUT_SECONDS = 120;
+
+    // Loaded but not initialized: there is no FX toolkit in training mode
+    private static final String[] UI_CLASSES = {
+        "com.ivan.themeprovider.ui.MainWindow",
+        "javafx.application.Platform",
+        "javafx.scene.Scene",
+        "javafx.scene.control.Alert",
+        "javafx.scene.control.Button",
+        "javafx.scene.control.Label",
+        "javafx.scene.control.ListCell",
+        "javafx.scene.control.ListView",
+        "javafx.scene.control.ScrollPane",
+        "javafx.scene.control.TextField",
+        "javafx.scene.control.ToggleButton",
+        "javafx.scene.image.Image",
+        "javafx.scene.image.ImageView",
+        "javafx.scene.layout.BorderPane",
+        "javafx.scene.layout.HBox",
+        "javafx.scene.layout.VBox",
+        "javafx.scene.web.WebEngine",
+        "javafx.scene.web.WebView",
+        "javafx.stage.DirectoryChooser",
+        "atlantafx.base.theme.PrimerDark",
+        "atlantafx.base.theme.PrimerLight",
+        "org.kordamp.ikonli.javafx.FontIcon",
+        "org.kordamp.ikonli.materialdesign2.MaterialDesignA",
+        "org.kordamp.ikonli.materialdesign2.MaterialDesignD",
+        "org.kordamp.ikonli.materialdesign2.MaterialDesignS",
+    };
+
+    private static final String SAMPLE_MARKDOWN = String.join("\n",
+        "# Sample Provider", "", "Some **bold** text, a [link](https://example.com) and a table:", "",
+        "| Theme | Mode |", "|-------|------|", "| Sky   | light |", "", "- [x] task", "- ~~struck~~", "",
+        "```yaml", "theme: sky", "```");
+
+    private StartupTrainer() {}
+
+    /**
+     * Check whether the arguments select one of the headless startup modes
+     */
+    public static boolean handles(String[] args) {
+        return args.length > 0 && (args[0].equals(TRAIN_FLAG) || args[0].equals(MEASURE_FLAG)
+                                   || args[0].equals(BENCHMARK_FLAG));
+    }
+
+    /**
+     * Run the mode selected by the first argument
+     *
+     * @return Process exit code
+     */
+    public static int run(String[] args) {
+        switch (args[0]) {
+            case TRAIN_FLAG:
+                exercise();
+                logger.info("Training run finished; the class archive is written as the JVM exits");
+                return 0;
+            case MEASURE_FLAG:
+                exercise();
+                System.out.println(RESULT_PREFIX + millisSinceJvmStart());
+                return 0;
+            default:
+                if (args.length < 2) {
+                    System.err.println("Usage: " + BENCHMARK_FLAG + " <archive.jsa>");
+                    return 2;
+                }
+                return benchmark(Paths.get(args[1]));
+        }
+    }
+
+    /**
+     * The session paths worth archiving: config, provider validation and index parsing,
+     * install status, markdown rendering, git repository access and the UI classes.
+     * Runs against a copy of the user's configuration in a temporary base directory, so the
+     * real config, install index and caches are never written.
+     */
+    private static void exercise() {
+        Path baseDir;
+        try {
+            baseDir = Files.createTempDirectory("theme-provider-training");
+            Path userConfig = ConfigManager.getDefaultBaseDir().resolve(ConfigManager.CONFIG_FILE_NAME);
+            if (Files.isRegularFile(userConfig)) {
+                // Its providers_root still points at the user's checkouts, which are only read
+                Files.copy(userConfig, baseDir.resolve(ConfigManager.CONFIG_FILE_NAME));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not prepare the training directory", e);
+        }
+        ConfigManager configManager = new ConfigManager(baseDir);
+        ThemeInstaller installer = new ThemeInstaller(configManager);
+        try {
+            // Fresh renderer without caches, so flexmark actually runs
+            MarkdownRenderer renderer = new MarkdownRenderer();
+            GitHubHandler gitHubHandler = new GitHubHandler(configManager.getFileTreeEngine());
+            boolean darkMode = configManager.isDarkMode();
+            List<ProviderInfo> providers = installer.getAvailableProviders();
+            for (ProviderInfo provider : providers) {
+                gitHubHandler.isGitRepository(provider.getProviderDir());
+                Path homepage = provider.getHomepagePath();
+                if (homepage != null && Files.isRegularFile(homepage)) {
+                    renderer.renderDocument(homepage, provider.getDisplayName(), darkMode, homepage.getParent());
+                }
+                for (Map.Entry<String, ThemeIndex.ThemeEntry> entry : provider.getIndex().getPresentThemes().entrySet()) {
+                    installer.getInstallStatus(provider, entry.getKey(), entry.getValue());
+                    String markdownPath = entry.getValue().getMarkdownPath();
+                    if (markdownPath != null) {
+                        Path markdownFile = provider.getProviderDir().resolve(markdownPath);
+                        if (Files.isRegularFile(markdownFile)) {
+                            renderer.renderDocument(markdownFile, entry.getValue().getDisplayName(entry.getKey()),
+                                                    darkMode, markdownFile.getParent());
+                        }
+                    }
+                }
+            }
+            // Covers the renderer even on a machine without providers yet
+            renderer.createHtmlDocument(renderer.renderString(SAMPLE_MARKDOWN), "Sample", darkMode);
+            int loaded = loadClasses(UI_CLASSES);
+            logger.info("Startup workload covered {} providers and {} UI classes", providers.size(), loaded);
+        } finally {
+            installer.shutdown();
+            configManager.shutdown();
+            deleteTree(baseDir);
+        }
+    }
+
+    private static void deleteTree(Path dir) {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.debug("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Could not delete training directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static int loadClasses(String[] names) {
+        int loaded = 0;
+        ClassLoader loader = StartupTrainer.class.getClassLoader();
+        for (String name : names) {
+            try {
+                Class.forName(name, false, loader);
+                loaded++;
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("Could not load {} for training: {}", name, e.toString());
+            }
+        }
+        return loaded;
+    }
+
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Launch the measurement in child JVMs, alternating between no class sharing and the
+     * given archive, and print the median of each
+     */
+    private static int benchmark(Path archive) {
+        if (!Files.isRegularFile(archive)) {
+            System.err.println("Archive not found: " + archive + " (create it with " + TRAIN_FLAG + ")");
+            return 2;
+        }
+        List<Long> withoutArchive = new ArrayList<>();
+        List<Long> withArchive = new ArrayList<>();
+        try {
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                withoutArchive.add(measureChild("-Xshare:off"));
+                withArchive.add(measureChild("-XX:SharedArchiveFile=" + archive.toAbsolutePath()));
+            }
+        } catch (IOException e) {
+            System.err.println("Startup measurement failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        long off = median(withoutArchive);
+        long on = median(withArchive);
+        System.out.printf("Startup without archive: %d ms %s%n", off, withoutArchive);
+        System.out.printf("Startup with archive:    %d ms %s%n", on, withArchive);
+        System.out.printf("Difference:              %d ms (%.0f%%)%n", off - on, off > 0 ? 100.0 * (off - on) / off : 0.0);
+        return 0;
+    }
+
+    private static long measureChild(String sharingOption) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command()
+                        .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString()));
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // Class sharing options are chosen per run
+            if (!arg.startsWith("-Xshare") && !arg.contains("SharedArchiveFile")
+                    && !arg.contains("ArchiveClassesAtExit") && !arg.contains("AutoCreateSharedArchive")) {
+                command.add(arg);
+            }
+        }
+        command.add(sharingOption);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Launcher.class.getName());
+        command.add(MEASURE_FLAG);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // Drained on its own thread, so a hanging child cannot block us past the timeout
+        CompletableFuture<Long> output = CompletableFuture.supplyAsync(() -> readResult(process));
+        if (!process.waitFor(CHILD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("Measurement run timed out");
+        }
+        Long result;
+        try {
+            result = output.get(CHILD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Could not read the measurement output", e);
+        }
+        if (result == null) {
+            throw new IOException("Measurement run exited with " + process.exitValue() + " without a result");
+        }
+        return result;
+    }
+
+    /**
+     * @return The reported startup time, or null if the child printed none
+     */
+    private static Long readResult(Process process) {
+        Long result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = Long.parseLong(line.substring(RESULT_PREFIX.length()).trim());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
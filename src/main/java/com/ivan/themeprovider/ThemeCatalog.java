@@ -0,0 +1,144 @@
+package com.ivan.themeprovider;
+
+import com.ivan.themeprovider.ThemeInstaller.ProviderInfo;
+import com.ivan.themeprovider.model.ThemeIndex;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Flat, searchable list of every theme across all providers.
+ * The catalog is immutable once built; searches only read it and may run on any thread.
+ */
+public final class ThemeCatalog {
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private final List<Entry> entries;
+
+    /**
+     * One theme of one provider, with its search text prepared up front
+     */
+    public static final class Entry {
+        private final ProviderInfo provider;
+        private final String themeId;
+        private final ThemeIndex.ThemeEntry theme;
+        private final String displayName;
+        private final String searchText;
+
+        Entry(ProviderInfo provider, String themeId, ThemeIndex.ThemeEntry theme) {
+            this.provider = provider;
+            this.themeId = themeId;
+            this.theme = theme;
+            this.displayName = theme.getDisplayName(themeId);
+            this.searchText = String.join("\n", displayName, themeId, provider.getDisplayName(),
+                                          Objects.toString(theme.getCategory(), ""), String.join(" ", theme.getThemeTags()))
+                .toLowerCase(Locale.ROOT);
+        }
+
+        public ProviderInfo getProvider() { return provider; }
+        public String getThemeId() { return themeId; }
+        public ThemeIndex.ThemeEntry getTheme() { return theme; }
+        public String getDisplayName() { return displayName; }
+
+        boolean matches(String[] terms) {
+            for (String term : terms) {
+                if (!searchText.contains(term)) return false;
+            }
+            return true;
+        }
+    }
+
+    private ThemeCatalog(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Build the catalog from parsed providers, in provider order
+     */
+    public static ThemeCatalog of(List<ProviderInfo> providers) {
+        List<Entry> entries = new ArrayList<>();
+        for (ProviderInfo provider : providers) {
+            for (Map.Entry<String, ThemeIndex.ThemeEntry> theme : provider.getIndex().getPresentThemes().entrySet()) {
+                entries.add(new Entry(provider, theme.getKey(), theme.getValue()));
+            }
+        }
+        return new ThemeCatalog(Collections.unmodifiableList(entries));
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Split a query into lower-case terms; every term has to match for an entry to be found
+     */
+    public static String[] terms(String query) {
+        String trimmed = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+
+    /**
+     * Find the entries matching a query and hand them over in batches
+     *
+     * @param candidates Entries to search, e.g. the results of a query this one refines
+     * @param cancelled Checked periodically; the search stops once it returns true
+     * @param batchSize Number of matches per batch; the last batch may be smaller or empty
+     * @param batchConsumer Receives each batch; the last call has {@code last == true}
+     * @return All matches, or null if the search was cancelled
+     */
+    public static List<Entry> search(List<Entry> candidates, String query, BooleanSupplier cancelled,
+                                     int batchSize, BatchConsumer batchConsumer) {
+        String[] terms = terms(query);
+        List<Entry> matches = new ArrayList<>();
+        List<Entry> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            Entry entry = candidates.get(i);
+            if (entry.matches(terms)) {
+                matches.add(entry);
+                batch.add(entry);
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(batch, false);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+        batchConsumer.accept(batch, true);
+        return matches;
+    }
+
+    /**
+     * Receives search results in batches
+     */
+    public interface BatchConsumer {
+        void accept(List<Entry> batch, boolean last);
+    }
+
+    /**
+     * Whether the results of {@code previous} contain all results of {@code query},
+     * so the new search only has to look at those
+     */
+    public static boolean refines(String query, String previous) {
+        if (previous == null) return false;
+        String[] previousTerms = terms(previous);
+        String[] queryTerms = terms(query);
+        // Every earlier term must still be implied by some new term
+        for (String previousTerm : previousTerms) {
+            boolean implied = false;
+            for (String term : queryTerms) {
+                if (term.contains(previousTerm)) { implied = true; break; }
+            }
+            if (!implied) return false;
+        }
+        return true;
+    }
+}
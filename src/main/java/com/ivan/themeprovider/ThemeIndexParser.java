@@ -130,12 +130,14 @@ public class ThemeIndexParser {
                 String name = getFirstString(obj, Arrays.asList("name", "title"));
                 String category = getFirstString(obj, Arrays.asList("category", "type"));
                 List<String> themeTags = parseTags(obj.get("theme_tags"));
+                String preview = getFirstString(obj, Arrays.asList("preview", "screenshot"));
                 ThemeIndex.ThemeEntry themeEntry = new ThemeIndex.ThemeEntry();
                 themeEntry.setThemePath(themePath);
                 themeEntry.setMarkdownPath(markdownPath);
                 themeEntry.setName(name);
                 themeEntry.setCategory(category);
                 themeEntry.setThemeTags(themeTags);
+                themeEntry.setPreview(preview);
                 // Ignore any legacy images_dir key intentionally
                 result.put(themeId, themeEntry);
             }
@@ -1,6 +1,7 @@
 package com.ivan.themeprovider;
 
 import com.ivan.themeprovider.model.ThemeIndex;
+import com.vladsch.flexmark.util.ast.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,8 +9,9 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 
 /**
  * Handles theme installation from theme providers to the program's customThemes directory
@@ -18,10 +20,19 @@ public class ThemeInstaller {
     private static final Logger logger = LoggerFactory.getLogger(ThemeInstaller.class);
     
     private final ConfigManager configManager;
-    private final GitHubHandler gitHubHandler;
-    private final ThemeIndexParser indexParser;
-    private final ExecutorService executorService;
-    private final MarkdownRenderer markdownRenderer;
+    private final ExecutionManager executionManager;
+    private final boolean ownsExecutionManager;
+    private final FileTreeEngine fileTreeEngine;
+    // Created on first use so constructing the installer stays cheap on the startup path
+    private final Lazy<GitHubHandler> gitHubHandler;
+    private final Lazy<ThemeIndexParser> indexParser;
+    private final Lazy<RenderCache> renderCache;
+    private final Lazy<MarkdownRenderer> markdownRenderer;
+    private final Lazy<InstalledThemeIndex> installedIndex;
+    private final Lazy<MarkdownPrerenderer> prerenderer;
+    private final Lazy<PreviewThumbnails> previewThumbnails;
+    private volatile MarkdownPrerenderer.ProgressListener prerenderListener;
+    private volatile BiPredicate<Document, Path> nativeMarkdownSupport;
     
     /**
      * Progress callback for theme installation operations
@@ -30,6 +41,11 @@ public class ThemeInstaller {
         void onProgressUpdate(String message, double progress);
         void onThemeInstalled(String themeId, String themeName, boolean success);
         void onComplete(int successful, int failed);
+        
+        /**
+         * Byte progress while a multi-file theme package is copied
+         */
+        default void onBytesCopied(String themeId, long bytesCopied, long bytesTotal) {}
     }
     
     /**
@@ -56,11 +72,95 @@ public class ThemeInstaller {
     }
     
     public ThemeInstaller(ConfigManager configManager) {
+        this(configManager, new ExecutionManager(), true);
+    }
+    
+    /**
+     * @param executionManager Shared execution layer; it is not shut down by this installer
+     */
+    public ThemeInstaller(ConfigManager configManager, ExecutionManager executionManager) {
+        this(configManager, executionManager, false);
+    }
+    
+    private ThemeInstaller(ConfigManager configManager, ExecutionManager executionManager, boolean ownsExecutionManager) {
         this.configManager = configManager;
-        this.gitHubHandler = new GitHubHandler();
-        this.indexParser = new ThemeIndexParser();
-        this.executorService = Executors.newFixedThreadPool(3);
-        this.markdownRenderer = new MarkdownRenderer();
+        this.fileTreeEngine = configManager.getFileTreeEngine();
+        this.executionManager = executionManager;
+        this.ownsExecutionManager = ownsExecutionManager;
+        this.gitHubHandler = Lazy.of(() -> new GitHubHandler(fileTreeEngine));
+        this.indexParser = Lazy.of(ThemeIndexParser::new);
+        this.renderCache = Lazy.of(() -> new RenderCache(configManager.getCacheDir().resolve("html")));
+        this.markdownRenderer = Lazy.of(() -> new MarkdownRenderer(renderCache.get()));
+        this.prerenderer = Lazy.of(() -> new MarkdownPrerenderer(markdownRenderer.get(), executionManager.background()));
+        this.previewThumbnails = Lazy.of(() -> new PreviewThumbnails(
+            new RenderCache(configManager.getCacheDir().resolve("thumbnails"), PreviewThumbnails.DEFAULT_MAX_BYTES, ".png"),
+            markdownRenderer.get()));
+        this.installedIndex = Lazy.of(() -> new InstalledThemeIndex(
+            configManager.getBaseDir().resolve(InstalledThemeIndex.INDEX_FILE_NAME)));
+    }
+    
+    /**
+     * Shared on-disk cache of rendered markdown documents
+     */
+    public RenderCache getRenderCache() {
+        return renderCache.get();
+    }
+    
+    /**
+     * Renderer shared with the UI so both sides benefit from its in-memory cache
+     */
+    public MarkdownRenderer getMarkdownRenderer() {
+        return markdownRenderer.get();
+    }
+    
+    /**
+     * Downsampled theme previews, cached on disk
+     */
+    public PreviewThumbnails getPreviewThumbnails() {
+        return previewThumbnails.get();
+    }
+    
+    /**
+     * Whether the renderer has been created yet; used to skip reporting on an unused one
+     */
+    public boolean isMarkdownRendererInitialized() {
+        return markdownRenderer.isInitialized();
+    }
+    
+    /**
+     * Create the lazily initialized subsystems ahead of their first use.
+     * Meant to run in the background once the first frame is on screen.
+     */
+    public void warmUp() {
+        indexParser.get();
+        installedIndex.get();
+        // Renders a snippet so flexmark's extension classes are loaded as well
+        markdownRenderer.get().renderString("# warm-up\n\n| a |\n|---|\n| ~~b~~ |");
+        gitHubHandler.get();
+    }
+    
+    /**
+     * Listener notified about background pre-rendering after provider updates
+     */
+    public void setPrerenderListener(MarkdownPrerenderer.ProgressListener listener) {
+        this.prerenderListener = listener;
+    }
+    
+    /**
+     * Documents the UI shows as native nodes, given the document and its directory;
+     * pre-rendering only parses those pages instead of also rendering them to HTML
+     */
+    public void setNativeMarkdownSupport(BiPredicate<Document, Path> nativeSupport) {
+        this.nativeMarkdownSupport = nativeSupport;
+    }
+    
+    /**
+     * Pre-render all provider homepages and theme pages in the background.
+     * Called after providers were cloned or updated; a pass still running is replaced.
+     */
+    public MarkdownPrerenderer.Job prerenderProviders() {
+        return prerenderer.get().prerender(getAvailableProviders(), configManager.isDarkMode(),
+                                           nativeMarkdownSupport, prerenderListener);
     }
     
     /**
@@ -69,18 +169,10 @@ public class ThemeInstaller {
     public CompletableFuture<InstallationResult> installAllThemes(
             InstallationProgressCallback progressCallback) {
         
-        return CompletableFuture.supplyAsync(() -> {
-            String programDir = configManager.getSelectedProgramDir();
-            if (programDir.isEmpty()) {
-                return new InstallationResult(false, "No program directory selected", 
-                                            Collections.emptyList(), Collections.emptyList());
-            }
-            
-            Path programPath = Paths.get(programDir);
-            ProgramValidator.ValidationResult validation = ProgramValidator.validateProgramDirectory(programPath);
-            
-            if (!validation.isValid()) {
-                return new InstallationResult(false, "Invalid program directory: " + validation.getMessage(),
+        return executionManager.supplyIo(() -> {
+            InstallTargets targets = resolveInstallTargets();
+            if (targets.getError() != null) {
+                return new InstallationResult(false, targets.getError(),
                                             Collections.emptyList(), Collections.emptyList());
             }
             
@@ -105,7 +197,7 @@ public class ThemeInstaller {
                 
                 InstallationResult providerResult = installThemesFromProvider(
                     provider.getKey(), provider.getValue(), configManager.getProvidersRoot(),
-                    validation.getCustomThemesDir(), new InstallationProgressCallback() {
+                    targets.getCustomThemesDirs(), new InstallationProgressCallback() {
                         @Override
                         public void onProgressUpdate(String message, double progress) {
                             if (progressCallback != null) {
@@ -135,12 +227,15 @@ public class ThemeInstaller {
                 progressCallback.onComplete(installed.size(), failed.size());
             }
             
+            // Providers were cloned or pulled above; warm the render caches for browsing
+            installedIndex.get().clearSourceCache();
+            prerenderProviders();
+            
             String message = String.format("Installation complete. %d themes installed, %d failed.",
                                           installed.size(), failed.size());
             
             return new InstallationResult(true, message, installed, failed);
-            
-        }, executorService);
+        });
     }
     
     /**
@@ -149,6 +244,16 @@ public class ThemeInstaller {
     public InstallationResult installThemesFromProvider(String providerId, String repositoryName,
                                                        Path providersRootDir, Path customThemesDir,
                                                        InstallationProgressCallback progressCallback) {
+        return installThemesFromProvider(providerId, repositoryName, providersRootDir,
+                                         List.of(customThemesDir), progressCallback);
+    }
+    
+    /**
+     * Install themes from a specific theme provider into several customThemes directories at once
+     */
+    public InstallationResult installThemesFromProvider(String providerId, String repositoryName,
+                                                       Path providersRootDir, List<Path> customThemesDirs,
+                                                       InstallationProgressCallback progressCallback) {
         
         try {
             // Clone or update the theme provider repository
@@ -156,7 +261,7 @@ public class ThemeInstaller {
                 progressCallback.onProgressUpdate("Cloning/updating " + repositoryName, 0.1);
             }
             
-            boolean cloneSuccess = gitHubHandler.cloneRepository(repositoryName, providersRootDir,
+            boolean cloneSuccess = gitHubHandler.get().cloneRepository(repositoryName, providersRootDir,
                 new GitHubHandler.ProgressCallback() {
                     @Override
                     public void onProgress(String task, int completed, int total) {
@@ -188,7 +293,7 @@ public class ThemeInstaller {
             }
             
             // Parse the theme index
-            ThemeIndex themeIndex = indexParser.parseIndex(providerDir);
+            ThemeIndex themeIndex = indexParser.get().parseIndex(providerDir);
             if (themeIndex == null) {
                 return new InstallationResult(false, "Failed to parse index.yml from: " + repositoryName,
                                             Collections.emptyList(), Collections.emptyList());
@@ -198,6 +303,7 @@ public class ThemeInstaller {
             Map<String, ThemeIndex.ThemeEntry> themes = themeIndex.getPresentThemes();
             List<String> installed = new ArrayList<>();
             List<String> failed = new ArrayList<>();
+            List<InstalledThemeIndex.Install> records = new ArrayList<>();
             
             int themeIndex_i = 0;
             for (Map.Entry<String, ThemeIndex.ThemeEntry> themeEntry : themes.entrySet()) {
@@ -210,7 +316,8 @@ public class ThemeInstaller {
                     progressCallback.onProgressUpdate("Installing theme: " + themeId, themeProgress);
                 }
                 
-                boolean installSuccess = installSingleTheme(themeId, theme, providerDir, customThemesDir);
+                boolean installSuccess = installSingleTheme(providerId, themeId, theme, providerDir, customThemesDirs,
+                                                           progressCallback, records);
                 
                 if (installSuccess) {
                     installed.add(themeId);
@@ -226,6 +333,7 @@ public class ThemeInstaller {
                 
                 themeIndex_i++;
             }
+            installedIndex.get().recordInstalls(records);
             
             return new InstallationResult(true, "Provider themes processed", installed, failed);
             
@@ -237,79 +345,109 @@ public class ThemeInstaller {
     }
     
     /**
-     * Install a single theme to the customThemes directory
+     * Install a single theme to every customThemes directory. The source is read and the
+     * markdown rendered once; the results are written to all targets.
+     *
+     * @param records Receives the finished install, so callers save the index once per batch
      */
-    private boolean installSingleTheme(String themeId, ThemeIndex.ThemeEntry theme, 
-                                     Path providerDir, Path customThemesDir) {
+    private boolean installSingleTheme(String providerId, String themeId, ThemeIndex.ThemeEntry theme,
+                                     Path providerDir, List<Path> customThemesDirs,
+                                     InstallationProgressCallback progressCallback,
+                                     Collection<InstalledThemeIndex.Install> records) {
         if (theme.getThemePath() == null || theme.getThemePath().isEmpty()) {
             logger.warn("Theme {} has no theme path specified", themeId);
             return false;
         }
         
         try {
-            // Source theme file
-            Path sourceThemePath = providerDir.resolve(theme.getThemePath());
-            if (!Files.exists(sourceThemePath)) {
-                logger.warn("Theme file does not exist: {}", sourceThemePath);
+            // Source theme file, or directory for multi-file theme packages
+            Path sourceThemePath = resolveThemeSource(providerDir, theme.getThemePath());
+            if (sourceThemePath == null) {
+                logger.warn("Theme {} path does not exist or is not inside its provider: {}", themeId, theme.getThemePath());
                 return false;
             }
             
-            // Destination theme file
+            // Destination theme file in every program directory
             String themeFileName = sourceThemePath.getFileName().toString();
-            Path destThemePath = customThemesDir.resolve(themeFileName);
+            List<Path> destThemePaths = new ArrayList<>();
+            for (Path customThemesDir : customThemesDirs) {
+                destThemePaths.add(customThemesDir.resolve(themeFileName));
+            }
             
-            // Copy theme file
-            Files.copy(sourceThemePath, destThemePath, StandardCopyOption.REPLACE_EXISTING);
-            logger.debug("Copied theme file: {} -> {}", sourceThemePath, destThemePath);
+            if (Files.isDirectory(sourceThemePath)) {
+                // Copy the package tree in parallel, reporting bytes as they land
+                FileTreeEngine.TreeResult copy = fileTreeEngine.copyTree(sourceThemePath, destThemePaths,
+                    progressCallback == null ? null
+                        : progress -> progressCallback.onBytesCopied(themeId, progress.getBytesDone(), progress.getBytesDiscovered()));
+                if (!copy.isSuccess()) {
+                    logger.warn("Theme package {} copied with {} failures", themeId, copy.getFailures().size());
+                    return false;
+                }
+                logger.debug("Copied theme package: {} -> {} ({} files, {} bytes)",
+                             sourceThemePath, destThemePaths, copy.getFiles(), copy.getBytes());
+            } else {
+                // Copy theme file
+                FileTreeEngine.copyFile(sourceThemePath, destThemePaths);
+                logger.debug("Copied theme file: {} -> {}", sourceThemePath, destThemePaths);
+            }
+            records.add(new InstalledThemeIndex.Install(providerId, themeId, sourceThemePath, destThemePaths));
             
             // Render markdown to HTML if a markdown path is provided (no image dir handling)
             if (theme.getMarkdownPath() != null && !theme.getMarkdownPath().isEmpty()) {
-                Path markdownPath = providerDir.resolve(theme.getMarkdownPath());
-                if (Files.exists(markdownPath) && Files.isRegularFile(markdownPath)) {
+                Path markdownPath = FileTreeEngine.resolveInside(providerDir, providerDir.resolve(theme.getMarkdownPath()));
+                if (markdownPath != null && Files.isRegularFile(markdownPath)) {
                     try {
-                        String htmlBody = markdownRenderer.renderFile(markdownPath);
-                        if (htmlBody == null) htmlBody = "";
-                        String title = themeId;
-                        String fullHtml = markdownRenderer.createHtmlDocument(htmlBody, title, configManager.isDarkMode());
                         String baseName = themeFileName.contains(".") ? themeFileName.substring(0, themeFileName.lastIndexOf('.')) : themeFileName;
-                        Path destHtmlPath = customThemesDir.resolve(baseName + ".html");
-                        Files.writeString(destHtmlPath, fullHtml, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                        logger.debug("Rendered markdown to HTML: {} -> {}", markdownPath, destHtmlPath);
+                        Path destHtmlPath = customThemesDirs.get(0).resolve(baseName + ".html");
+                        if (markdownRenderer.get().renderDocumentTo(markdownPath, themeId, configManager.isDarkMode(), null, destHtmlPath)) {
+                            logger.debug("Rendered markdown to HTML: {} -> {}", markdownPath, destHtmlPath);
+                            for (Path customThemesDir : customThemesDirs.subList(1, customThemesDirs.size())) {
+                                Files.copy(destHtmlPath, customThemesDir.resolve(baseName + ".html"),
+                                           StandardCopyOption.REPLACE_EXISTING);
+                            }
+                        }
                     } catch (Exception e) {
                         logger.warn("Failed to render markdown for theme {}: {}", themeId, e.getMessage());
                     }
                 } else {
-                    logger.debug("Markdown file not found for theme {} at {}", themeId, markdownPath);
+                    logger.debug("Markdown file not found for theme {} at {}", themeId, theme.getMarkdownPath());
                 }
             }
             
             return true;
             
-        } catch (IOException e) {
+        } catch (IOException | InvalidPathException e) {
             logger.error("Failed to install theme: {}", themeId, e);
             return false;
         }
     }
     
     /**
-     * Copy a directory and all its contents recursively
+     * Resolve the theme path of an index entry to a file or package directory inside the
+     * provider checkout. The checkout itself and paths without a proper file name are rejected,
+     * since the name becomes the install target in customThemes.
+     *
+     * @return The real source path, or null if it is missing or not a valid theme source
      */
-    private void copyDirectory(Path sourceDir, Path destDir) throws IOException {
-        Files.createDirectories(destDir);
-        
-        Files.walk(sourceDir)
-             .forEach(sourcePath -> {
-                 try {
-                     Path destPath = destDir.resolve(sourceDir.relativize(sourcePath));
-                     if (Files.isDirectory(sourcePath)) {
-                         Files.createDirectories(destPath);
-                     } else {
-                         Files.copy(sourcePath, destPath, StandardCopyOption.REPLACE_EXISTING);
-                     }
-                 } catch (IOException e) {
-                     logger.warn("Failed to copy: {} -> {}", sourcePath, destDir, e);
-                 }
-             });
+    private static Path resolveThemeSource(Path providerDir, String themePath) {
+        Path source;
+        try {
+            source = FileTreeEngine.resolveInside(providerDir, providerDir.resolve(themePath));
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (source == null || source.getFileName() == null) {
+            return null;
+        }
+        String name = source.getFileName().toString();
+        try {
+            if (name.equals(".") || name.equals("..") || Files.isSameFile(source, providerDir)) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return source;
     }
     
     /**
@@ -318,15 +456,7 @@ public class ThemeInstaller {
     public List<ThemeInfo> getAvailableThemes() {
         List<ThemeInfo> themes = new ArrayList<>();
         
-        String programDir = configManager.getSelectedProgramDir();
-        if (programDir.isEmpty()) {
-            return themes;
-        }
-        
-        Path programPath = Paths.get(programDir);
-        ProgramValidator.ValidationResult validation = ProgramValidator.validateProgramDirectory(programPath);
-        
-        if (!validation.isValid()) {
+        if (resolveInstallTargets().getError() != null) {
             return themes;
         }
         
@@ -338,7 +468,7 @@ public class ThemeInstaller {
             Path providerDir = providersRoot.resolve(repoName);
             
             if (Files.exists(providerDir)) {
-                ThemeIndex themeIndex = indexParser.parseIndex(providerDir);
+                ThemeIndex themeIndex = indexParser.get().parseIndex(providerDir);
                 if (themeIndex != null) {
                     for (Map.Entry<String, ThemeIndex.ThemeEntry> themeEntry : 
                          themeIndex.getPresentThemes().entrySet()) {
@@ -385,11 +515,7 @@ public class ThemeInstaller {
     /** List available providers with parsed indexes */
     public List<ProviderInfo> getAvailableProviders() {
         List<ProviderInfo> providers = new ArrayList<>();
-        String programDir = configManager.getSelectedProgramDir();
-        if (programDir.isEmpty()) return providers;
-        Path programPath = Paths.get(programDir);
-        ProgramValidator.ValidationResult validation = ProgramValidator.validateProgramDirectory(programPath);
-        if (!validation.isValid()) return providers;
+        if (resolveInstallTargets().getError() != null) return providers;
         Map<String, String> themeProviders = configManager.getInstalledThemeProviders();
         Path providersRoot = configManager.getProvidersRoot();
         for (Map.Entry<String, String> entry : themeProviders.entrySet()) {
@@ -397,7 +523,7 @@ public class ThemeInstaller {
             String repoName = entry.getValue().substring(entry.getValue().lastIndexOf('/') + 1);
             Path providerDir = providersRoot.resolve(repoName);
             if (!Files.exists(providerDir)) continue;
-            ThemeIndex index = indexParser.parseIndex(providerDir);
+            ThemeIndex index = indexParser.get().parseIndex(providerDir);
             if (index != null) {
                 providers.add(new ProviderInfo(providerId, entry.getValue(), providerDir, index));
             }
@@ -405,24 +531,262 @@ public class ThemeInstaller {
         return providers;
     }
 
+    /**
+     * Providers added and removed by a configuration change
+     */
+    public static class ProviderChanges {
+        private final List<ProviderInfo> added;
+        private final Set<String> removed;
+        
+        public ProviderChanges(List<ProviderInfo> added, Set<String> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+        
+        public List<ProviderInfo> getAdded() { return added; }
+        public Set<String> getRemoved() { return removed; }
+        public boolean isEmpty() { return added.isEmpty() && removed.isEmpty(); }
+    }
+    
+    /**
+     * Apply a change of the configured provider map without touching unchanged providers.
+     * Added providers (or providers now pointing at another repository) are cloned if their
+     * checkout is missing, parsed and pre-rendered; removed ones are only reported, their
+     * checkout and installed themes are left alone.
+     * 
+     * @param previous Provider map before the change
+     * @param current Provider map after the change
+     * @return Providers to add to and remove from the UI
+     */
+    public ProviderChanges syncProviders(Map<String, String> previous, Map<String, String> current) {
+        Set<String> removed = new LinkedHashSet<>();
+        Map<String, String> added = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : previous.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) {
+                removed.add(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return new ProviderChanges(Collections.emptyList(), removed);
+        }
+        logger.info("Provider configuration changed: {} added, {} removed", added.keySet(), removed);
+        
+        Path providersRoot = configManager.getProvidersRoot();
+        List<ProviderInfo> loaded = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutionManager.Scope scope = executionManager.openScope()) {
+            for (Map.Entry<String, String> entry : added.entrySet()) {
+                String repository = entry.getValue();
+                scope.fork(() -> {
+                    Path providerDir = providersRoot.resolve(repository.substring(repository.lastIndexOf('/') + 1));
+                    if (!Files.exists(providerDir) && !gitHubHandler.get().cloneRepository(repository, providersRoot, null)) {
+                        logger.warn("Failed to clone added provider {}", repository);
+                        return null;
+                    }
+                    ThemeIndex index = indexParser.get().parseIndex(providerDir);
+                    if (index != null) {
+                        loaded.add(new ProviderInfo(entry.getKey(), repository, providerDir, index));
+                    }
+                    return null;
+                });
+            }
+            scope.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Provider sync interrupted");
+        }
+        
+        // Keep configuration order for the UI
+        List<ProviderInfo> ordered = new ArrayList<>(loaded);
+        List<String> order = new ArrayList<>(added.keySet());
+        ordered.sort(Comparator.comparingInt(p -> order.indexOf(p.getId())));
+        if (!ordered.isEmpty()) {
+            prerenderer.get().prerender(ordered, configManager.isDarkMode(), nativeMarkdownSupport, prerenderListener);
+        }
+        return new ProviderChanges(ordered, removed);
+    }
+    
+    /**
+     * Install state of a theme from the installed-state index. Stats the installed copies and may
+     * hash the source (see {@link InstalledThemeIndex#getStatus}); call it off the FX thread,
+     * batched per list rather than per cell. Thread-safe.
+     */
+    public InstalledThemeIndex.Status getInstallStatus(ProviderInfo provider, String themeId, ThemeIndex.ThemeEntry theme) {
+        Path source = theme.getThemePath() != null ? resolveThemeSource(provider.getProviderDir(), theme.getThemePath()) : null;
+        return installedIndex.get().getStatus(provider.getId(), themeId, source);
+    }
+
+    /**
+     * A theme picked for installation, identified by provider and theme id
+     */
+    public static class ThemeSelection {
+        private final String providerId;
+        private final String themeId;
+        
+        public ThemeSelection(String providerId, String themeId) {
+            this.providerId = providerId;
+            this.themeId = themeId;
+        }
+        
+        public String getProviderId() { return providerId; }
+        public String getThemeId() { return themeId; }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ThemeSelection)) return false;
+            ThemeSelection other = (ThemeSelection) o;
+            return providerId.equals(other.providerId) && themeId.equals(other.themeId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(providerId, themeId);
+        }
+        
+        @Override
+        public String toString() {
+            return providerId + "/" + themeId;
+        }
+    }
+    
+    /**
+     * Install a batch of themes from any number of providers as one job.
+     * The program directory is validated once, each provider index is parsed once,
+     * and the individual installs run in parallel.
+     * 
+     * @param selections Themes to install
+     * @param progressCallback Optional callback receiving aggregated progress
+     * @return One result for the whole batch
+     */
+    public CompletableFuture<InstallationResult> installThemes(Collection<ThemeSelection> selections,
+                                                               InstallationProgressCallback progressCallback) {
+        return executionManager.supplyIo(() -> {
+            InstallTargets targets = resolveInstallTargets();
+            if (targets.getError() != null) {
+                return new InstallationResult(false, targets.getError(),
+                                            Collections.emptyList(), Collections.emptyList());
+            }
+            
+            // Group by provider so every index is parsed once
+            Map<String, List<String>> byProvider = new LinkedHashMap<>();
+            for (ThemeSelection selection : new LinkedHashSet<>(selections)) {
+                byProvider.computeIfAbsent(selection.getProviderId(), k -> new ArrayList<>()).add(selection.getThemeId());
+            }
+            
+            List<String> installed = Collections.synchronizedList(new ArrayList<>());
+            List<String> failed = Collections.synchronizedList(new ArrayList<>());
+            List<InstalledThemeIndex.Install> records = Collections.synchronizedList(new ArrayList<>());
+            Map<String, String> themeProviders = configManager.getInstalledThemeProviders();
+            Path providersRoot = configManager.getProvidersRoot();
+            int total = byProvider.values().stream().mapToInt(List::size).sum();
+            AtomicInteger done = new AtomicInteger();
+            
+            if (progressCallback != null) {
+                progressCallback.onProgressUpdate("Installing " + total + " themes", 0.0);
+            }
+            
+            try (ExecutionManager.Scope scope = executionManager.openScope()) {
+                for (Map.Entry<String, List<String>> group : byProvider.entrySet()) {
+                    String providerId = group.getKey();
+                    String repository = themeProviders.get(providerId);
+                    Path providerDir = repository != null
+                        ? providersRoot.resolve(repository.substring(repository.lastIndexOf('/') + 1)) : null;
+                    ThemeIndex themeIndex = providerDir != null && Files.exists(providerDir)
+                        ? indexParser.get().parseIndex(providerDir) : null;
+                    
+                    for (String themeId : group.getValue()) {
+                        ThemeIndex.ThemeEntry theme = themeIndex != null ? themeIndex.getPresentThemes().get(themeId) : null;
+                        scope.fork(() -> {
+                            boolean ok = theme != null && installSingleTheme(providerId, themeId, theme, providerDir,
+                                                                             targets.getCustomThemesDirs(), progressCallback, records);
+                            (ok ? installed : failed).add(themeId);
+                            int completed = done.incrementAndGet();
+                            if (progressCallback != null) {
+                                progressCallback.onThemeInstalled(themeId, theme != null ? theme.getDisplayName(themeId) : themeId, ok);
+                                progressCallback.onProgressUpdate("Installed " + completed + " of " + total, (double) completed / total);
+                            }
+                            return ok;
+                        });
+                    }
+                }
+                scope.join();
+            }
+            installedIndex.get().recordInstalls(records);
+            
+            if (progressCallback != null) {
+                progressCallback.onComplete(installed.size(), failed.size());
+            }
+            String message = String.format("Installation complete. %d themes installed, %d failed.",
+                                          installed.size(), failed.size());
+            return new InstallationResult(failed.isEmpty(), message, new ArrayList<>(installed), new ArrayList<>(failed));
+        });
+    }
+
     /** Install a single theme by provider and theme id */
     public boolean installTheme(String providerId, String themeId) {
-        String programDir = configManager.getSelectedProgramDir();
-        if (programDir.isEmpty()) return false;
-        Path programPath = Paths.get(programDir);
-        ProgramValidator.ValidationResult validation = ProgramValidator.validateProgramDirectory(programPath);
-        if (!validation.isValid()) return false;
+        InstallTargets targets = resolveInstallTargets();
+        if (targets.getError() != null) return false;
         Map<String, String> themeProviders = configManager.getInstalledThemeProviders();
         String repository = themeProviders.get(providerId);
         if (repository == null) return false;
         String repoName = repository.substring(repository.lastIndexOf('/') + 1);
         Path providerDir = configManager.getProvidersRoot().resolve(repoName);
         if (!Files.exists(providerDir)) return false;
-        ThemeIndex themeIndex = indexParser.parseIndex(providerDir);
+        ThemeIndex themeIndex = indexParser.get().parseIndex(providerDir);
         if (themeIndex == null) return false;
         ThemeIndex.ThemeEntry theme = themeIndex.getPresentThemes().get(themeId);
         if (theme == null) return false;
-        return installSingleTheme(themeId, theme, providerDir, validation.getCustomThemesDir());
+        List<InstalledThemeIndex.Install> records = new ArrayList<>();
+        boolean ok = installSingleTheme(providerId, themeId, theme, providerDir, targets.getCustomThemesDirs(), null, records);
+        installedIndex.get().recordInstalls(records);
+        return ok;
+    }
+    
+    /**
+     * customThemes directories of all valid program directories, or an error when there are none
+     */
+    private static class InstallTargets {
+        private final List<Path> customThemesDirs;
+        private final String error;
+        
+        InstallTargets(List<Path> customThemesDirs, String error) {
+            this.customThemesDirs = customThemesDirs;
+            this.error = error;
+        }
+        
+        List<Path> getCustomThemesDirs() { return customThemesDirs; }
+        String getError() { return error; }
+    }
+    
+    /**
+     * Validate every configured program directory. Invalid ones are skipped with a warning
+     * so one broken install does not block the others.
+     */
+    private InstallTargets resolveInstallTargets() {
+        List<String> programDirs = configManager.getProgramDirs();
+        if (programDirs.isEmpty()) {
+            return new InstallTargets(Collections.emptyList(), "No program directory selected");
+        }
+        List<Path> customThemesDirs = new ArrayList<>();
+        String firstError = null;
+        for (String programDir : programDirs) {
+            ProgramValidator.ValidationResult validation = ProgramValidator.getValidation(Paths.get(programDir));
+            if (validation.isValid()) {
+                customThemesDirs.add(validation.getCustomThemesDir());
+            } else {
+                logger.warn("Skipping invalid program directory {}: {}", programDir, validation.getMessage());
+                if (firstError == null) firstError = validation.getMessage();
+            }
+        }
+        if (customThemesDirs.isEmpty()) {
+            return new InstallTargets(customThemesDirs, "Invalid program directory: " + firstError);
+        }
+        return new InstallTargets(customThemesDirs, null);
     }
     
     /**
@@ -455,27 +819,41 @@ public class ThemeInstaller {
     }
     
     /**
-     * Shutdown the executor service
+     * Stop background work; the execution manager is shut down only if this installer created it
      */
     public void shutdown() {
-        executorService.shutdown();
+        prerenderer.ifInitialized(MarkdownPrerenderer::shutdown);
+        if (ownsExecutionManager) {
+            executionManager.shutdown();
+        }
     }
 
-    /** Update all configured providers (git pull if exists, else clone). */
+    /** Update all configured providers (git pull if exists, else clone), each on its own virtual thread. */
     public boolean updateAllProviders(GitHubHandler.ProgressCallback progressCallback) {
         Map<String, String> themeProviders = configManager.getInstalledThemeProviders();
         Path providersRoot = configManager.getProvidersRoot();
         boolean allOk = true;
-        for (Map.Entry<String, String> entry : themeProviders.entrySet()) {
-            String repo = entry.getValue();
-            try {
-                boolean ok = gitHubHandler.cloneRepository(repo, providersRoot, progressCallback);
-                allOk &= ok;
-            } catch (Exception e) {
-                logger.error("Update failed for {}", repo, e);
-                allOk = false;
+        try (ExecutionManager.Scope scope = executionManager.openScope()) {
+            Map<String, Future<Boolean>> updates = new LinkedHashMap<>();
+            for (String repo : themeProviders.values()) {
+                updates.put(repo, scope.fork(() -> gitHubHandler.get().cloneRepository(repo, providersRoot, progressCallback)));
             }
+            scope.join();
+            for (Map.Entry<String, Future<Boolean>> update : updates.entrySet()) {
+                try {
+                    allOk &= update.getValue().get();
+                } catch (Exception e) {
+                    logger.error("Update failed for {}", update.getKey(), e);
+                    allOk = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Provider update interrupted");
+            return false;
         }
+        installedIndex.get().clearSourceCache();
+        prerenderProviders();
         return allOk;
     }
-}
\ No newline at end of file
+}
@@ -27,6 +27,7 @@ public class ThemeProviderClient extends Application {
         System.setProperty("themeClient.baseDir", configManager.getBaseDir().toString());
         
         logger.info("Configuration loaded from: {}", configManager.getConfigPath());
+        StartupTimer.mark(StartupTimer.CONFIG_LOADED);
     }
     
     @Override
@@ -37,6 +38,7 @@ public class ThemeProviderClient extends Application {
             // Create and show the main window
             mainWindow = new MainWindow(primaryStage, configManager);
             primaryStage.show();
+            StartupTimer.mark(StartupTimer.WINDOW_SHOWN);
             
             logger.info("Theme Provider Client started successfully");
             
@@ -55,9 +57,9 @@ public class ThemeProviderClient extends Application {
                 mainWindow.shutdown();
             }
             
-            // Save any final configuration changes
+            // Write any pending configuration changes before exiting
             if (configManager != null) {
-                configManager.saveConfig();
+                configManager.shutdown();
             }
             
             logger.info("Theme Provider Client shutdown complete");
@@ -73,11 +75,17 @@ public class ThemeProviderClient extends Application {
      * Main method to launch the application
      */
     public static void main(String[] args) {
+        StartupTimer.mark(StartupTimer.MAIN);
         logger.info("Theme Provider Client starting...");
         logger.info("Java version: {}", System.getProperty("java.version"));
         logger.info("JavaFX version: {}", System.getProperty("javafx.version"));
         logger.info("OS: {} {}", System.getProperty("os.name"), System.getProperty("os.version"));
         
+        // Headless AppCDS training and startup measurement modes (no window)
+        if (StartupTrainer.handles(args)) {
+            System.exit(StartupTrainer.run(args));
+        }
+        
         try {
             // Enable high DPI support if available
             System.setProperty("prism.allowhidpi", "true");
@@ -0,0 +1,142 @@
+package com.ivan.themeprovider.model;
+
+import java.util.*;
+
+/**
+ * Immutable view of the application configuration.
+ * Nested maps and lists are copied into unmodifiable collections, so a snapshot can be
+ * shared across threads and iterated without locking. Changes produce a new snapshot.
+ */
+public final class ConfigSnapshot {
+    private final Map<String, Object> values;
+
+    private ConfigSnapshot(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    /**
+     * Create a snapshot from loaded YAML data; the data is deep-copied
+     */
+    public static ConfigSnapshot of(Map<String, Object> data) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        if (data != null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                copy.put(entry.getKey(), freeze(entry.getValue()));
+            }
+        }
+        return new ConfigSnapshot(Collections.unmodifiableMap(copy));
+    }
+
+    public static ConfigSnapshot empty() {
+        return new ConfigSnapshot(Collections.emptyMap());
+    }
+
+    /**
+     * Return a copy of this snapshot with one value replaced
+     */
+    public ConfigSnapshot with(String key, Object value) {
+        if (Objects.equals(values.get(key), value)) {
+            return this;
+        }
+        Map<String, Object> copy = new LinkedHashMap<>(values);
+        copy.put(key, freeze(value));
+        return new ConfigSnapshot(Collections.unmodifiableMap(copy));
+    }
+
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = values.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object value = values.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value != null ? Boolean.parseBoolean(value.toString()) : defaultValue;
+    }
+
+    /**
+     * Get a string list; non-list values yield an empty list
+     */
+    public List<String> getStringList(String key) {
+        Object value = values.get(key);
+        if (!(value instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<String> list = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+            if (item != null) list.add(item.toString());
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get a string-to-string map in its stored order; non-map values yield an empty map
+     */
+    public Map<String, String> getStringMap(String key) {
+        Object value = values.get(key);
+        if (!(value instanceof Map)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            map.put(String.valueOf(entry.getKey()), entry.getValue() != null ? entry.getValue().toString() : null);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Mutable deep copy for serialization
+     */
+    public Map<String, Object> toMap() {
+        return thaw(values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), freeze(entry.getValue()));
+            }
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(freeze(item));
+            }
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T thaw(T value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), thaw(entry.getValue()));
+            }
+            return (T) copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(thaw(item));
+            }
+            return (T) copy;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot" + values;
+    }
+}
@@ -140,6 +140,7 @@ public class ThemeIndex {
         private String name;       // Human-friendly theme name
         private String category;   // e.g., dark or light
         private List<String> themeTags = new ArrayList<>(); // theme_tags
+        private String preview;    // Preview image shown in the catalog grid
         
         public ThemeEntry() {}
         
@@ -161,12 +162,20 @@ public class ThemeIndex {
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
         
+        /**
+         * Name shown in the UI, falling back to the theme id
+         */
+        public String getDisplayName(String themeId) { return name != null ? name : themeId; }
+        
         public String getCategory() { return category; }
         public void setCategory(String category) { this.category = category; }
         
         public List<String> getThemeTags() { return themeTags; }
         public void setThemeTags(List<String> themeTags) { this.themeTags = themeTags != null ? themeTags : new ArrayList<>(); }
         
+        public String getPreview() { return preview; }
+        public void setPreview(String preview) { this.preview = preview; }
+        
         @Override
         public String toString() {
             return "ThemeEntry{" +
@@ -175,6 +184,7 @@ public class ThemeIndex {
                     ", name='" + name + '\'' +
                     ", category='" + category + '\'' +
                     ", themeTags=" + themeTags +
+                    ", preview='" + preview + '\'' +
                     '}';
         }
     }
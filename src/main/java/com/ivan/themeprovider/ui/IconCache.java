@@ -0,0 +1,184 @@
+package com.ivan.themeprovider.ui;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Decoded provider icons (and catalog thumbnails) keyed by file and display size.
+ * Icons are decoded once in the background and kept in a byte-bounded LRU, so list cells only
+ * attach an existing {@link Image} when they are recycled. WebP icons are decoded by the
+ * pure-Java ImageIO WebP plugin and scaled into a {@link WritableImage}; JavaFX cannot
+ * decode WebP itself and no {@code WebView} is needed.
+ */
+final class IconCache {
+    private static final Logger logger = LoggerFactory.getLogger(IconCache.class);
+
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    // Stored for files that are missing or cannot be decoded, so they are not retried on every scroll
+    private static final Image MISSING = new WritableImage(1, 1);
+
+    private final Executor executor;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Image> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Image>> loading = new HashMap<>();
+    private long totalBytes;
+
+    IconCache(Executor executor) {
+        this(executor, DEFAULT_MAX_BYTES);
+    }
+
+    IconCache(Executor executor, long maxBytes) {
+        this.executor = executor;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The decoded icon, or null if it is not cached (yet) or could not be decoded
+     */
+    synchronized Image getIfPresent(Path path, int size) {
+        Image image = entries.get(new Key(path, size));
+        return image == MISSING ? null : image;
+    }
+
+    /**
+     * Decode the icon in the background; concurrent requests for the same icon share one decode.
+     * Completes with null if the file is missing or cannot be decoded.
+     */
+    synchronized CompletableFuture<Image> load(Path path, int size) {
+        Key key = new Key(path, size);
+        Image cached = entries.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached == MISSING ? null : cached);
+        }
+        CompletableFuture<Image> pending = loading.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<Image> future = CompletableFuture.supplyAsync(() -> decode(path, size), executor)
+            .handle((image, error) -> {
+                Image result = error == null && image != null ? image : MISSING;
+                synchronized (IconCache.this) {
+                    loading.remove(key);
+                    put(key, result);
+                }
+                return result == MISSING ? null : result;
+            });
+        loading.put(key, future);
+        return future;
+    }
+
+    /**
+     * Forget one icon, e.g. because its file was replaced or removed, so the next load decodes it again
+     */
+    synchronized void invalidate(Path path, int size) {
+        Image removed = entries.remove(new Key(path, size));
+        if (removed != null) totalBytes -= sizeOf(removed);
+    }
+
+    /**
+     * Drop all icons, e.g. after providers were updated
+     */
+    synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private void put(Key key, Image image) {
+        long bytes = sizeOf(image);
+        if (bytes > maxBytes) return;
+        Image previous = entries.put(key, image);
+        if (previous != null) totalBytes -= sizeOf(previous);
+        totalBytes += bytes;
+        Iterator<Map.Entry<Key, Image>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= sizeOf(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        // Decoded images are held as 4 bytes per pixel
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static Image decode(Path path, int size) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        try {
+            if (name.endsWith(".webp")) {
+                return decodeWithImageIo(path, size);
+            }
+            Image image = new Image(path.toUri().toString(), size, size, true, true);
+            if (image.isError()) {
+                // Formats JavaFX does not know may still have an ImageIO reader
+                return decodeWithImageIo(path, size);
+            }
+            return image;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not decode icon {}: {}", path, e.toString());
+            return null;
+        }
+    }
+
+    private static Image decodeWithImageIo(Path path, int size) throws IOException {
+        BufferedImage source = ImageIO.read(path.toFile());
+        if (source == null) {
+            logger.debug("No image reader for {}", path);
+            return null;
+        }
+        // Fit into size x size, keeping the aspect ratio
+        double scale = Math.min((double) size / source.getWidth(), (double) size / source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        int[] pixels = scaled.getRGB(0, 0, width, height, null, 0, width);
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+
+    private static final class Key {
+        private final Path path;
+        private final int size;
+
+        Key(Path path, int size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return size == other.size && path.equals(other.path);
+        }
+
+        @Override public int hashCode() {
+            return 31 * path.hashCode() + size;
+        }
+    }
+}
@@ -5,11 +5,15 @@ import atlantafx.base.theme.PrimerLight;
 import com.ivan.themeprovider.*;
 import com.ivan.themeprovider.ThemeInstaller.ProviderInfo;
 import com.ivan.themeprovider.ThemeInstaller.ThemeInfo;
+import com.ivan.themeprovider.model.ConfigSnapshot;
 import com.ivan.themeprovider.model.ThemeIndex;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -17,20 +21,27 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.*;
-import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.materialdesign2.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Desktop;
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -38,9 +49,33 @@ import java.util.stream.Collectors;
  */
 public class MainWindow {
     private static final Logger logger = LoggerFactory.getLogger(MainWindow.class);
+    private static final int ICON_SIZE = 32;
+    private static final int SEARCH_BATCH_SIZE = 500;
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+    private static final double TILE_WIDTH = 160;
+    private static final double TILE_HEIGHT = 100;
+    private static final long STALL_THRESHOLD_MILLIS = 200;
     
     private final ConfigManager configManager;
+    private final ExecutionManager executionManager;
     private final ThemeInstaller themeInstaller;
+    private final ViewLoader viewLoader;
+    // FX latency, stalls and per-view time-to-interactive, written to ui_metrics.csv at exit
+    private final Metrics metrics = new Metrics();
+    private StallDetector stallDetector;
+    private ViewTransitions viewTransitions;
+    private final IconCache iconCache;
+    private final ThemeThumbnails themeThumbnails;
+    private final WebViewPool webViewPool = new WebViewPool(2);
+    private final MarkdownNodeRenderer markdownNodeRenderer = new MarkdownNodeRenderer(this::openLink);
+    // Detail pages of hovered or selected themes, built before they are opened
+    private final PagePrefetcher<DetailKey, MarkdownPage> detailPrefetcher;
+    // Views left by navigating deeper, re-attached by Back
+    private final ViewHistory history = new ViewHistory(16, 64L * 1024 * 1024);
+    // Builds the current view again when its history entry was dropped
+    private Runnable currentRebuild;
+    // Pooled views shown by the current content view, returned to the pool when it is replaced
+    private final List<WebView> contentWebViews = new ArrayList<>();
     private final Stage primaryStage;
     
     // UI Components / Navigation
@@ -50,24 +85,83 @@ public class MainWindow {
     private Label headerTitle;
     private Button headerBackButton;
     private Button headerInstallButton;
-
-    // Markdown rendering
-    private final MarkdownRenderer markdownRenderer = new MarkdownRenderer();
+    private Label headerStatus;
 
     // State
     private ProviderInfo currentProvider;
     private String currentThemeId;
+    private Pane providerSelectionPane;
+    private ListView<ProviderInfo> providerListView;
+    // Theme search across all providers; the catalog is rebuilt after providers change
+    private ThemeCatalog themeCatalog;
+    private String catalogQuery = "";
+    private boolean catalogGrid;
+    private final ConfigManager.ReloadListener configReloadListener = this::onConfigReloaded;
+
+    // Startup tracking: interactive once the first frame is painted and the initial view has its content
+    private boolean firstFramePainted;
+    private boolean initialViewLoaded;
 
     public MainWindow(Stage primaryStage, ConfigManager configManager) {
         this.primaryStage = primaryStage;
         this.configManager = configManager;
-        this.themeInstaller = new ThemeInstaller(configManager);
+        this.executionManager = new ExecutionManager();
+        this.themeInstaller = new ThemeInstaller(configManager, executionManager);
+        this.viewLoader = new ViewLoader(executionManager);
+        this.iconCache = new IconCache(executionManager.cpu());
+        this.themeThumbnails = new ThemeThumbnails(themeInstaller::getPreviewThumbnails, executionManager.background());
+        this.detailPrefetcher = new PagePrefetcher<>(this::loadDetailPage, executionManager.background(), 4);
+        themeInstaller.setPrerenderListener(new MarkdownPrerenderer.ProgressListener() {
+            @Override public void onProgress(int completed, int total) {
+                Platform.runLater(() -> {
+                    headerStatus.setText("Preparing pages " + completed + "/" + total);
+                    headerStatus.setVisible(true);
+                });
+            }
+            @Override public void onComplete(int rendered, int failed, boolean cancelled) {
+                Platform.runLater(() -> headerStatus.setVisible(false));
+            }
+        });
+        themeInstaller.setNativeMarkdownSupport(markdownNodeRenderer::supports);
+        
+        configManager.addReloadListener(configReloadListener);
         
         setupTheme();
         initializeUI();
         loadConfiguration();
     }
     
+    /**
+     * The config file was edited externally: clone and parse only the providers that changed
+     * and patch the provider list in place
+     */
+    private void onConfigReloaded(ConfigSnapshot previous, ConfigSnapshot current) {
+        Map<String, String> before = previous.getStringMap("installed_theme_providers");
+        Map<String, String> after = current.getStringMap("installed_theme_providers");
+        if (before.equals(after)) return;
+        executionManager.io().execute(() -> {
+            ThemeInstaller.ProviderChanges changes = themeInstaller.syncProviders(before, after);
+            Platform.runLater(() -> applyProviderChanges(changes));
+        });
+    }
+    
+    private void applyProviderChanges(ThemeInstaller.ProviderChanges changes) {
+        themeCatalog = null;
+        themeThumbnails.clear();
+        detailPrefetcher.clear();
+        // Remembered views may show removed providers
+        history.clear();
+        // Other views pick the change up the next time the provider list is built
+        if (providerSelectionPane == null || contentPane.getCenter() != providerSelectionPane) return;
+        if (providerListView == null) {
+            // The empty placeholder is shown; build the list
+            showProviderSelection();
+            return;
+        }
+        providerListView.getItems().removeIf(p -> changes.getRemoved().contains(p.getId()));
+        providerListView.getItems().addAll(changes.getAdded());
+    }
+    
     private void setupTheme() {
         // Apply Material Design 3 theme based on user preference
         if (configManager.isDarkMode()) {
@@ -84,13 +178,50 @@ public class MainWindow {
         HBox headerBox = createHeader();
         contentPane = new BorderPane();
         contentPane.setPadding(new Insets(12));
+        contentPane.centerProperty().addListener((obs, previous, current) -> releaseContentWebViews());
         root.setTop(headerBox);
         root.setCenter(contentPane);
 
         Scene scene = new Scene(root, 1100, 750);
+        viewTransitions = new ViewTransitions(scene, metrics);
+        viewLoader.setSettledListener(viewTransitions::contentReady);
+        stallDetector = new StallDetector(metrics, STALL_THRESHOLD_MILLIS);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override public void run() {
+                // The first pulse with a laid-out scene is the one that paints the first frame
+                if (!primaryStage.isShowing()) return;
+                scene.removePostLayoutPulseListener(this);
+                // Startup work is covered by the startup timer; stalls are watched from here on
+                stallDetector.start(scene);
+                onFirstFrame();
+            }
+        });
         primaryStage.setScene(scene);
         primaryStage.setTitle("Peggle Roguelike Theme Provider Client");
     }
+
+    private void onFirstFrame() {
+        StartupTimer.mark(StartupTimer.FIRST_FRAME);
+        firstFramePainted = true;
+        // Renderer, parsers and JGit were deferred past the first frame; create them now
+        executionManager.background().execute(themeInstaller::warmUp);
+        checkInteractive();
+    }
+
+    private void onInitialViewLoaded() {
+        initialViewLoaded = true;
+        checkInteractive();
+    }
+
+    private void checkInteractive() {
+        if (!firstFramePainted || !initialViewLoaded || StartupTimer.getMillis(StartupTimer.INTERACTIVE) >= 0) return;
+        StartupTimer.mark(StartupTimer.INTERACTIVE);
+        Path csvFile = configManager.getBaseDir().resolve(StartupTimer.LOG_FILE_NAME);
+        executionManager.io().execute(() -> StartupTimer.report(csvFile));
+        // The first view is on screen; create a WebView engine while the FX thread is idle,
+        // so the first homepage or theme page that needs one does not pay for it
+        Platform.runLater(() -> webViewPool.prewarm(1));
+    }
     
     private HBox createHeader() {
         HBox headerBox = new HBox(12);
@@ -110,6 +241,10 @@ public class MainWindow {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
+        headerStatus = new Label();
+        headerStatus.getStyleClass().add("text-muted");
+        headerStatus.setVisible(false);
+
         headerInstallButton = new Button("Install");
         headerInstallButton.setGraphic(new FontIcon(MaterialDesignD.DOWNLOAD));
         headerInstallButton.setVisible(false);
@@ -121,45 +256,51 @@ public class MainWindow {
         darkModeToggle.setOnAction(e -> toggleDarkMode());
         darkModeToggle.setTooltip(new Tooltip("Toggle Dark/Light Mode"));
 
-        headerBox.getChildren().addAll(headerBackButton, appIcon, headerTitle, spacer, headerInstallButton, darkModeToggle);
+        headerBox.getChildren().addAll(headerBackButton, appIcon, headerTitle, spacer, headerStatus, headerInstallButton, darkModeToggle);
         return headerBox;
     }
     
     // Navigation and views
     private void showProviderSelection() {
+        viewTransitions.begin("providers");
         headerBackButton.setVisible(false);
         headerInstallButton.setVisible(false);
         headerTitle.setText("Theme Providers");
+        // The provider list is the root of the navigation
+        history.clear();
+        currentRebuild = this::showProviderSelection;
+        currentProvider = null;
+        currentThemeId = null;
 
         VBox container = new VBox(12);
         container.setPadding(new Insets(8));
+        container.getChildren().add(createLoadingPlaceholder("Loading providers..."));
 
-        List<ProviderInfo> providers = themeInstaller.getAvailableProviders();
+        providerSelectionPane = container;
+        providerListView = null;
+        contentPane.setCenter(container);
+        // Validation, directory listing and index parsing run off the FX thread
+        viewLoader.loadIo(themeInstaller::getAvailableProviders, providers -> {
+            populateProviderSelection(container, providers);
+            onInitialViewLoaded();
+        }, error -> container.getChildren().setAll(createLoadFailure("Could not load providers", error)));
+    }
+
+    private void populateProviderSelection(VBox container, List<ProviderInfo> providers) {
         if (providers.isEmpty()) {
             Label empty = new Label("No providers found. Click Refresh or Install All on the previous screen.");
-            container.getChildren().add(empty);
-            contentPane.setCenter(container);
+            container.getChildren().setAll(empty);
             return;
         }
 
         ListView<ProviderInfo> listView = new ListView<>();
+        providerListView = listView;
         listView.getItems().setAll(providers);
-        listView.setCellFactory(lv -> new ListCell<>() {
-            @Override protected void updateItem(ProviderInfo item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) { setGraphic(null); setText(null); return; }
-                HBox row = new HBox(10);
-                Node iconNode = createIconNode(item.getIconPath());
-                Label name = new Label(item.getDisplayName());
-                name.getStyleClass().add("title-4");
-                row.getChildren().addAll(iconNode, name);
-                setGraphic(row);
-                setText(null);
-            }
-        });
+        listView.setCellFactory(lv -> new ProviderCell());
         listView.setOnMouseClicked(e -> {
             if (e.getButton() == MouseButton.PRIMARY && listView.getSelectionModel().getSelectedItem() != null) {
-                showProviderHome(listView.getSelectionModel().getSelectedItem());
+                ProviderInfo selected = listView.getSelectionModel().getSelectedItem();
+                navigateTo(() -> showProviderHome(selected));
             }
         });
 
@@ -175,45 +316,192 @@ public class MainWindow {
         HBox.setHgrow(spacer, Priority.ALWAYS);
         Button settingsBtn = new Button("Settings");
         settingsBtn.setGraphic(new FontIcon(MaterialDesignC.COG));
-        settingsBtn.setOnAction(e -> showSettings());
-        bottomBar.getChildren().addAll(addBtn, updateBtn, spacer, settingsBtn);
+        settingsBtn.setOnAction(e -> navigateTo(this::showSettings));
+        Button searchBtn = new Button("Search Themes");
+        searchBtn.setGraphic(new FontIcon(MaterialDesignM.MAGNIFY));
+        searchBtn.setOnAction(e -> navigateTo(this::showCatalogSearch));
+        bottomBar.getChildren().addAll(addBtn, updateBtn, searchBtn, spacer, settingsBtn);
 
-        container.getChildren().addAll(listView, bottomBar);
+        container.getChildren().setAll(listView, bottomBar);
         VBox.setVgrow(listView, Priority.ALWAYS);
-        contentPane.setCenter(container);
+    }
+
+    private Node createLoadingPlaceholder(String message) {
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(32, 32);
+        Label label = new Label(message);
+        label.getStyleClass().add("text-muted");
+        VBox box = new VBox(8, indicator, label);
+        box.setAlignment(Pos.CENTER);
+        box.setMaxHeight(Double.MAX_VALUE);
+        VBox.setVgrow(box, Priority.ALWAYS);
+        return box;
+    }
+
+    private Node createLoadFailure(String message, Throwable error) {
+        Label label = new Label(message + ": " + error.getMessage());
+        label.getStyleClass().add("danger");
+        return label;
+    }
+
+    /**
+     * A markdown page built off the FX thread: native nodes, or an HTML document for the WebView fallback
+     */
+    private static final class MarkdownPage {
+        private final Node node;
+        private final String html;
+
+        MarkdownPage(Node node, String html) {
+            this.node = node;
+            this.html = html;
+        }
+    }
+
+    /**
+     * Runs on a worker thread. Pages the native renderer supports become JavaFX nodes;
+     * anything else (raw HTML, other image formats) is rendered to HTML for a pooled WebView.
+     */
+    private MarkdownPage loadMarkdownPage(Path markdownFile, String title, boolean darkMode, String emptyMessage) {
+        if (markdownFile == null || !Files.exists(markdownFile)) {
+            return new MarkdownPage(new Label(emptyMessage), null);
+        }
+        MarkdownRenderer renderer = themeInstaller.getMarkdownRenderer();
+        com.vladsch.flexmark.util.ast.Document document = renderer.parseFile(markdownFile);
+        if (document != null) {
+            Node node = markdownNodeRenderer.render(document, markdownFile.getParent());
+            if (node != null) {
+                return new MarkdownPage(node, null);
+            }
+            logger.debug("Using WebView for {}", markdownFile);
+        }
+        String html = renderer.renderDocument(markdownFile, title, darkMode, markdownFile.getParent());
+        return html != null ? new MarkdownPage(null, html) : new MarkdownPage(new Label(emptyMessage), null);
+    }
+
+    /**
+     * Identifies a theme detail page; the dark mode matters for the WebView fallback
+     */
+    private static final class DetailKey {
+        private final ProviderInfo provider;
+        private final String themeId;
+        private final ThemeIndex.ThemeEntry entry;
+        private final boolean darkMode;
+
+        DetailKey(ProviderInfo provider, String themeId, ThemeIndex.ThemeEntry entry, boolean darkMode) {
+            this.provider = provider;
+            this.themeId = themeId;
+            this.entry = entry;
+            this.darkMode = darkMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DetailKey)) return false;
+            DetailKey other = (DetailKey) o;
+            return darkMode == other.darkMode && provider.getId().equals(other.provider.getId())
+                   && themeId.equals(other.themeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(provider.getId(), themeId, darkMode);
+        }
+    }
+
+    private MarkdownPage loadDetailPage(DetailKey key) {
+        String markdownPath = key.entry.getMarkdownPath();
+        Path md = markdownPath != null ? key.provider.getProviderDir().resolve(markdownPath) : null;
+        return loadMarkdownPage(md, key.entry.getDisplayName(key.themeId), key.darkMode, "No description.");
+    }
+
+    /**
+     * The theme is likely to be opened next: build its page (and start loading its images) in the background
+     */
+    private void prefetchThemeDetail(ProviderInfo provider, String themeId, ThemeIndex.ThemeEntry entry) {
+        detailPrefetcher.prefetch(new DetailKey(provider, themeId, entry, configManager.isDarkMode()));
+    }
+
+    private Node createPageView(MarkdownPage page) {
+        Node view = page.node != null ? page.node : createHtmlView(page.html);
+        VBox.setVgrow(view, Priority.ALWAYS);
+        return view;
+    }
+
+    /**
+     * Open links of native markdown pages in the system browser
+     */
+    private void openLink(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            logger.warn("Invalid link: {}", url);
+            return;
+        }
+        if (!uri.isAbsolute()) {
+            logger.debug("Ignoring relative link {}", url);
+            return;
+        }
+        executionManager.io().execute(() -> {
+            try {
+                if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.BROWSE)) {
+                    Desktop.getDesktop().browse(uri);
+                } else {
+                    logger.warn("No browser available to open {}", url);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to open {}: {}", url, e.getMessage());
+            }
+        });
+    }
+
+    private WebView createHtmlView(String html) {
+        WebView webView = webViewPool.acquire();
+        contentWebViews.add(webView);
+        webViewPool.load(webView, html);
+        VBox.setVgrow(webView, Priority.ALWAYS);
+        return webView;
+    }
+
+    private void releaseContentWebViews() {
+        for (WebView webView : contentWebViews) {
+            webViewPool.release(webView);
+        }
+        contentWebViews.clear();
     }
 
     private void showProviderHome(ProviderInfo provider) {
+        viewTransitions.begin("homepage");
         this.currentProvider = provider;
+        this.currentThemeId = null;
+        currentRebuild = () -> showProviderHome(provider);
         headerBackButton.setVisible(true);
         headerInstallButton.setVisible(false);
         headerTitle.setText(provider.getDisplayName());
 
         VBox container = new VBox(12);
-        WebView webView = new WebView();
-        WebEngine engine = webView.getEngine();
-        String html = "<p>No homepage.</p>";
-        Path mdPath = provider.getHomepagePath();
-        if (mdPath != null && Files.exists(mdPath)) {
-            String body = markdownRenderer.renderFile(mdPath);
-            if (body == null) body = "";
-            html = markdownRenderer.createHtmlDocument(body, provider.getDisplayName(), configManager.isDarkMode(), mdPath.getParent());
-        }
-        engine.loadContent(html);
-
         Button allThemesBtn = new Button("All Themes");
         allThemesBtn.setGraphic(new FontIcon(MaterialDesignV.VIEW_LIST));
-        allThemesBtn.setOnAction(e -> showCategorySelection(provider));
+        allThemesBtn.setOnAction(e -> navigateTo(() -> showCategorySelection(provider)));
 
-        container.getChildren().addAll(webView, allThemesBtn);
-        VBox.setVgrow(webView, Priority.ALWAYS);
+        container.getChildren().addAll(createLoadingPlaceholder("Loading homepage..."), allThemesBtn);
         contentPane.setCenter(container);
+
+        Path mdPath = provider.getHomepagePath();
+        boolean darkMode = configManager.isDarkMode();
+        viewLoader.loadCpu(() -> loadMarkdownPage(mdPath, provider.getDisplayName(), darkMode, "No homepage."),
+           page -> container.getChildren().set(0, createPageView(page)),
+           error -> container.getChildren().set(0, createLoadFailure("Could not load homepage", error)));
     }
 
     private void showCategorySelection(ProviderInfo provider) {
+        viewTransitions.begin("categories");
+        currentRebuild = () -> showCategorySelection(provider);
         headerBackButton.setVisible(true);
         headerInstallButton.setVisible(false);
         headerTitle.setText(provider.getDisplayName() + " · Categories");
+        viewLoader.cancel();
 
         VBox box = new VBox(12);
         Label l = new Label("Select a category");
@@ -221,18 +509,21 @@ public class MainWindow {
         Button light = new Button("Light");
         Button dark = new Button("Dark");
         Button other = new Button("Other");
-        light.setOnAction(e -> showThemeCatalogForCategory(provider, "light"));
-        dark.setOnAction(e -> showThemeCatalogForCategory(provider, "dark"));
-        other.setOnAction(e -> showThemeCatalogForCategory(provider, "other"));
+        light.setOnAction(e -> navigateTo(() -> showThemeCatalogForCategory(provider, "light")));
+        dark.setOnAction(e -> navigateTo(() -> showThemeCatalogForCategory(provider, "dark")));
+        other.setOnAction(e -> navigateTo(() -> showThemeCatalogForCategory(provider, "other")));
         buttons.getChildren().addAll(light, dark, other);
         box.getChildren().addAll(l, buttons);
         contentPane.setCenter(box);
     }
 
     private void showThemeCatalogForCategory(ProviderInfo provider, String category) {
+        viewTransitions.begin("theme-list");
+        currentRebuild = () -> showThemeCatalogForCategory(provider, category);
         headerBackButton.setVisible(true);
         headerInstallButton.setVisible(false);
         headerTitle.setText(provider.getDisplayName() + " · " + category.substring(0,1).toUpperCase() + category.substring(1));
+        viewLoader.cancel();
 
         ScrollPane scroll = new ScrollPane();
         scroll.setFitToWidth(true);
@@ -260,91 +551,468 @@ public class MainWindow {
         label.getStyleClass().add("title-3");
         ListView<Map.Entry<String, ThemeIndex.ThemeEntry>> lv = new ListView<>();
         lv.getItems().setAll(list);
+        // Install status hashes files on disk; cells show badges once it has been loaded
+        Map<String, InstalledThemeIndex.Status> statuses = new HashMap<>();
+        // Also reloaded when Back re-attaches the list, since a theme may have been installed meanwhile
+        lv.sceneProperty().addListener((obs, previous, scene) -> {
+            if (scene != null) loadInstallStatuses(provider, list, statuses, lv);
+        });
+        lv.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         lv.setCellFactory(l -> new ListCell<>() {
+            {
+                setOnMouseEntered(e -> {
+                    if (getItem() != null) prefetchThemeDetail(provider, getItem().getKey(), getItem().getValue());
+                });
+            }
             @Override protected void updateItem(Map.Entry<String, ThemeIndex.ThemeEntry> item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) { setGraphic(null); setText(null); return; }
                 String display = Optional.ofNullable(item.getValue().getName()).orElse(item.getKey());
                 setText(display + (item.getValue().getThemeTags().isEmpty() ? "" : "  [" + String.join(", ", item.getValue().getThemeTags()) + "]"));
+                setGraphic(createInstallBadge(statuses.get(item.getKey())));
+                setContentDisplay(ContentDisplay.RIGHT);
             }
         });
+        // Arrow-key navigation moves the selection over the theme that is likely opened next
+        lv.getSelectionModel().selectedItemProperty().addListener((obs, previous, item) -> {
+            if (item != null) prefetchThemeDetail(provider, item.getKey(), item.getValue());
+        });
         lv.setOnMouseClicked(e -> {
+            // Ctrl/Shift-click extends the selection for batch install instead of opening the theme
+            if (e.isShortcutDown() || e.isShiftDown()) return;
             if (e.getButton() == MouseButton.PRIMARY && lv.getSelectionModel().getSelectedItem() != null) {
                 Map.Entry<String, ThemeIndex.ThemeEntry> sel = lv.getSelectionModel().getSelectedItem();
-                showThemeDetail(provider, sel.getKey(), sel.getValue());
+                navigateTo(() -> showThemeDetail(provider, sel.getKey(), sel.getValue()));
             }
         });
-        box.getChildren().addAll(label, lv);
+
+        Button installSelected = new Button("Install Selected");
+        installSelected.setGraphic(new FontIcon(MaterialDesignD.DOWNLOAD_MULTIPLE));
+        installSelected.setDisable(true);
+        lv.getSelectionModel().getSelectedItems().addListener((ListChangeListener<Map.Entry<String, ThemeIndex.ThemeEntry>>) c -> {
+            int count = lv.getSelectionModel().getSelectedItems().size();
+            installSelected.setDisable(count == 0);
+            installSelected.setText(count > 1 ? "Install Selected (" + count + ")" : "Install Selected");
+        });
+        installSelected.setOnAction(e -> {
+            List<ThemeInstaller.ThemeSelection> selections = lv.getSelectionModel().getSelectedItems().stream()
+                .map(entry -> new ThemeInstaller.ThemeSelection(provider.getId(), entry.getKey()))
+                .collect(Collectors.toList());
+            installSelections(selections, installSelected, () -> loadInstallStatuses(provider, list, statuses, lv));
+        });
+        Label hint = new Label("Ctrl/Shift-click to select several themes");
+        hint.getStyleClass().add("text-muted");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox header = new HBox(8, label, spacer, hint, installSelected);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        box.getChildren().addAll(header, lv);
         return box;
     }
 
+    /**
+     * Install several themes as one batch job, reporting progress in the header and a single result
+     */
+    private void installSelections(List<ThemeInstaller.ThemeSelection> selections, Button trigger, Runnable onDone) {
+        if (selections.isEmpty()) return;
+        trigger.setDisable(true);
+        themeInstaller.installThemes(selections, new ThemeInstaller.InstallationProgressCallback() {
+            @Override public void onProgressUpdate(String message, double progress) {
+                Platform.runLater(() -> {
+                    headerStatus.setText(message);
+                    headerStatus.setVisible(true);
+                });
+            }
+            @Override public void onThemeInstalled(String themeId, String themeName, boolean success) {}
+            @Override public void onComplete(int successful, int failed) {}
+        }).whenComplete((result, error) -> Platform.runLater(() -> {
+            trigger.setDisable(false);
+            headerStatus.setVisible(false);
+            onDone.run();
+            Alert a;
+            if (error != null) {
+                a = new Alert(Alert.AlertType.ERROR, "Installation error: " + error.getMessage());
+            } else if (result.isSuccess()) {
+                a = new Alert(Alert.AlertType.INFORMATION, result.getMessage());
+            } else {
+                String failedList = result.getFailedThemes().isEmpty() ? "" : "\nFailed: " + String.join(", ", result.getFailedThemes());
+                a = new Alert(Alert.AlertType.ERROR, result.getMessage() + failedList);
+            }
+            a.setHeaderText(null);
+            a.showAndWait();
+        }));
+    }
+
+    private void loadInstallStatuses(ProviderInfo provider, List<Map.Entry<String, ThemeIndex.ThemeEntry>> themes,
+                                     Map<String, InstalledThemeIndex.Status> statuses,
+                                     ListView<Map.Entry<String, ThemeIndex.ThemeEntry>> listView) {
+        executionManager.supplyIo(() -> {
+            Map<String, InstalledThemeIndex.Status> loaded = new HashMap<>();
+            for (Map.Entry<String, ThemeIndex.ThemeEntry> theme : themes) {
+                loaded.put(theme.getKey(), themeInstaller.getInstallStatus(provider, theme.getKey(), theme.getValue()));
+            }
+            return loaded;
+        }).whenComplete((loaded, error) -> {
+            if (error != null) {
+                logger.warn("Could not determine install status for {}: {}", provider.getId(), error.getMessage());
+                return;
+            }
+            Platform.runLater(() -> {
+                statuses.putAll(loaded);
+                listView.refresh();
+            });
+        });
+    }
+
+    private Node createInstallBadge(InstalledThemeIndex.Status status) {
+        if (status == null) return null;
+        switch (status) {
+            case INSTALLED: {
+                Label badge = new Label("Installed", new FontIcon(MaterialDesignC.CHECK_CIRCLE));
+                badge.getStyleClass().addAll("success", "text-small");
+                return badge;
+            }
+            case OUTDATED: {
+                Label badge = new Label("Update available", new FontIcon(MaterialDesignU.UPDATE));
+                badge.getStyleClass().addAll("warning", "text-small");
+                return badge;
+            }
+            default:
+                return null;
+        }
+    }
+
     private void showThemeDetail(ProviderInfo provider, String themeId, ThemeIndex.ThemeEntry entry) {
+        viewTransitions.begin("detail");
         this.currentProvider = provider;
         this.currentThemeId = themeId;
+        currentRebuild = () -> showThemeDetail(provider, themeId, entry);
         headerBackButton.setVisible(true);
         headerInstallButton.setVisible(true);
-        headerTitle.setText(Optional.ofNullable(entry.getName()).orElse(themeId));
+        headerTitle.setText(entry.getDisplayName(themeId));
 
         VBox container = new VBox(12);
-        WebView webView = new WebView();
-        WebEngine engine = webView.getEngine();
-        String html = "<p>No description.</p>";
-        if (entry.getMarkdownPath() != null) {
-            Path md = provider.getProviderDir().resolve(entry.getMarkdownPath());
-            if (Files.exists(md)) {
-                String body = markdownRenderer.renderFile(md);
-                if (body == null) body = "";
-                html = markdownRenderer.createHtmlDocument(body, headerTitle.getText(), configManager.isDarkMode(), md.getParent());
-            }
-        }
-        engine.loadContent(html);
-        container.getChildren().add(webView);
-        VBox.setVgrow(webView, Priority.ALWAYS);
         contentPane.setCenter(container);
+
+        DetailKey key = new DetailKey(provider, themeId, entry, configManager.isDarkMode());
+        CompletableFuture<MarkdownPage> prefetched = detailPrefetcher.take(key);
+        if (prefetched != null && prefetched.isDone()) {
+            // Built while the theme was hovered or selected
+            viewLoader.cancel();
+            container.getChildren().setAll(createPageView(prefetched.join()));
+            return;
+        }
+        container.getChildren().add(createLoadingPlaceholder("Loading theme..."));
+        // A prefetch already being built is awaited rather than started over
+        viewLoader.loadCpu(prefetched, () -> loadDetailPage(key),
+           page -> container.getChildren().setAll(createPageView(page)),
+           error -> container.getChildren().setAll(createLoadFailure("Could not load theme", error)));
+    }
+
+    /**
+     * Show a view one level deeper, remembering the current one for Back
+     */
+    private void navigateTo(Runnable show) {
+        Node view = contentPane.getCenter();
+        // Views still loading, or showing pooled WebViews (blanked when left), are rebuilt instead
+        boolean reusable = view != null && !viewLoader.isPending() && contentWebViews.isEmpty();
+        String title = headerTitle.getText();
+        boolean backVisible = headerBackButton.isVisible();
+        boolean installVisible = headerInstallButton.isVisible();
+        ProviderInfo provider = currentProvider;
+        String themeId = currentThemeId;
+        Runnable rebuild = currentRebuild != null ? currentRebuild : this::showProviderSelection;
+        String viewName = viewTransitions.current();
+        history.push(reusable ? view : null, () -> {
+            viewTransitions.begin(viewName);
+            headerTitle.setText(title);
+            headerBackButton.setVisible(backVisible);
+            headerInstallButton.setVisible(installVisible);
+            currentProvider = provider;
+            currentThemeId = themeId;
+            currentRebuild = rebuild;
+        }, rebuild);
+        show.run();
     }
 
     private void navigateBack() {
-        if (currentThemeId != null) {
-            // From theme detail back to category selection
-            currentThemeId = null;
-            showCategorySelection(currentProvider);
-            return;
+        viewTransitions.back(() -> {
+            if (history.isEmpty()) {
+                showProviderSelection();
+                return;
+            }
+            // Either re-attaches the remembered view or rebuilds it
+            Node view = history.back();
+            if (view != null) {
+                viewLoader.cancel();
+                contentPane.setCenter(view);
+            }
+        });
+    }
+
+    /**
+     * Search all themes of all providers. The catalog is built off the FX thread on first use;
+     * queries are debounced and evaluated on the cpu pool.
+     */
+    private void showCatalogSearch() {
+        viewTransitions.begin("catalog");
+        currentRebuild = this::showCatalogSearch;
+        currentProvider = null;
+        currentThemeId = null;
+        headerBackButton.setVisible(true);
+        headerInstallButton.setVisible(false);
+        headerTitle.setText("Search Themes");
+
+        TextField filter = new TextField(catalogQuery);
+        filter.setPromptText("Filter by name, provider, category or tag");
+        Label count = new Label();
+        count.getStyleClass().add("text-muted");
+        ToggleButton gridToggle = new ToggleButton();
+        gridToggle.setGraphic(new FontIcon(MaterialDesignV.VIEW_GRID_OUTLINE));
+        gridToggle.setTooltip(new Tooltip("Show previews"));
+        gridToggle.setSelected(catalogGrid);
+        gridToggle.setDisable(true);
+        HBox top = new HBox(8, filter, count, gridToggle);
+        top.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(filter, Priority.ALWAYS);
+        VBox box = new VBox(8, top, createLoadingPlaceholder("Loading catalog..."));
+        box.setPadding(new Insets(8));
+        contentPane.setCenter(box);
+
+        ThemeCatalog cached = themeCatalog;
+        viewLoader.loadIo(() -> cached != null ? cached : ThemeCatalog.of(themeInstaller.getAvailableProviders()), catalog -> {
+            themeCatalog = catalog;
+            ListView<ThemeCatalog.Entry> results = new ListView<>();
+            results.setCellFactory(lv -> {
+                CatalogCell cell = new CatalogCell();
+                cell.setOnMouseEntered(e -> {
+                    ThemeCatalog.Entry item = cell.getItem();
+                    if (item != null) prefetchThemeDetail(item.getProvider(), item.getThemeId(), item.getTheme());
+                });
+                return cell;
+            });
+            results.getSelectionModel().selectedItemProperty().addListener((obs, previous, item) -> {
+                if (item != null) prefetchThemeDetail(item.getProvider(), item.getThemeId(), item.getTheme());
+            });
+            results.setOnMouseClicked(e -> {
+                ThemeCatalog.Entry selected = results.getSelectionModel().getSelectedItem();
+                if (e.getButton() == MouseButton.PRIMARY && selected != null) {
+                    navigateTo(() -> showThemeDetail(selected.getProvider(), selected.getThemeId(), selected.getTheme()));
+                }
+            });
+            VBox.setVgrow(results, Priority.ALWAYS);
+            // Both views show the same result list; the grid is only built once it is first shown
+            Lazy<ListView<?>> grid = Lazy.of(() -> {
+                ListView<?> view = new ThumbnailGrid<>(results.getItems(), TILE_WIDTH, ThemeTile::new).getView();
+                VBox.setVgrow(view, Priority.ALWAYS);
+                return view;
+            });
+            gridToggle.setOnAction(e -> {
+                catalogGrid = gridToggle.isSelected();
+                box.getChildren().set(1, catalogGrid ? grid.get() : results);
+            });
+            gridToggle.setDisable(false);
+            box.getChildren().set(1, catalogGrid ? grid.get() : results);
+
+            CatalogSearch search = new CatalogSearch(catalog, results, count);
+            PauseTransition debounce = new PauseTransition(SEARCH_DEBOUNCE);
+            debounce.setOnFinished(e -> search.run(filter.getText()));
+            filter.textProperty().addListener((obs, previous, text) -> {
+                catalogQuery = text;
+                debounce.playFromStart();
+            });
+            search.run(filter.getText());
+            filter.requestFocus();
+        }, error -> box.getChildren().set(1, createLoadFailure("Could not load themes", error)));
+    }
+
+    /**
+     * Evaluates catalog queries on the cpu pool and streams the matches into the list in batches.
+     * A new query cancels the running one; a query that narrows the previous one only searches its matches.
+     */
+    private class CatalogSearch {
+        private final ThemeCatalog catalog;
+        private final ListView<ThemeCatalog.Entry> results;
+        private final Label count;
+        private final AtomicLong generation = new AtomicLong();
+        // FX thread only
+        private String lastQuery;
+        private List<ThemeCatalog.Entry> lastMatches;
+
+        CatalogSearch(ThemeCatalog catalog, ListView<ThemeCatalog.Entry> results, Label count) {
+            this.catalog = catalog;
+            this.results = results;
+            this.count = count;
         }
-        if (currentProvider != null) {
-            // From catalog/home to provider selection
-            currentProvider = null;
-            showProviderSelection();
-            return;
+
+        void run(String query) {
+            long id = generation.incrementAndGet();
+            List<ThemeCatalog.Entry> candidates = lastMatches != null && ThemeCatalog.refines(query, lastQuery)
+                ? lastMatches : catalog.getEntries();
+            executionManager.cpu().execute(() -> {
+                AtomicBoolean first = new AtomicBoolean(true);
+                List<ThemeCatalog.Entry> matches = ThemeCatalog.search(candidates, query, () -> generation.get() != id,
+                                                                       SEARCH_BATCH_SIZE, (batch, last) -> {
+                    boolean replace = first.getAndSet(false);
+                    Platform.runLater(() -> {
+                        if (generation.get() != id) return;
+                        // The previous results stay visible until the first batch of the new query arrives
+                        if (replace) {
+                            results.getItems().setAll(batch);
+                        } else {
+                            results.getItems().addAll(batch);
+                        }
+                        int found = results.getItems().size();
+                        count.setText(last ? found + " of " + catalog.size() + " themes" : found + " themes...");
+                    });
+                });
+                if (matches == null) return;
+                Platform.runLater(() -> {
+                    if (generation.get() != id) return;
+                    lastQuery = query;
+                    lastMatches = matches;
+                });
+            });
         }
-        // Already at main, do nothing
     }
 
-    private Node createIconNode(Path iconPath) {
-        double size = 32;
-        if (iconPath == null || !Files.exists(iconPath)) {
-            FontIcon fallback = new FontIcon(MaterialDesignI.IMAGE);
-            fallback.setIconSize((int) size);
-            return fallback;
+    /**
+     * Catalog grid tile. Shows a placeholder until the preview thumbnail has been loaded in the
+     * background; a recycled tile ignores loads started for its previous entry.
+     */
+    private class ThemeTile implements ThumbnailGrid.Tile<ThemeCatalog.Entry> {
+        private final ImageView preview = new ImageView();
+        private final FontIcon placeholder = new FontIcon(MaterialDesignI.IMAGE_OUTLINE);
+        private final StackPane frame = new StackPane(placeholder, preview);
+        private final Label name = new Label();
+        private final Label provider = new Label();
+        private final VBox node = new VBox(4, frame, name, provider);
+        private final AtomicLong generation = new AtomicLong();
+        private ThemeCatalog.Entry item;
+
+        ThemeTile() {
+            preview.setFitWidth(TILE_WIDTH);
+            preview.setFitHeight(TILE_HEIGHT);
+            preview.setPreserveRatio(true);
+            preview.setSmooth(true);
+            placeholder.setIconSize(32);
+            placeholder.getStyleClass().add("text-muted");
+            frame.setMinSize(TILE_WIDTH, TILE_HEIGHT);
+            frame.setPrefSize(TILE_WIDTH, TILE_HEIGHT);
+            frame.setMaxSize(TILE_WIDTH, TILE_HEIGHT);
+            name.setMaxWidth(TILE_WIDTH);
+            provider.setMaxWidth(TILE_WIDTH);
+            provider.getStyleClass().add("text-muted");
+            node.setPrefWidth(TILE_WIDTH);
+            node.setCursor(Cursor.HAND);
+            node.setOnMouseEntered(e -> {
+                if (item != null) prefetchThemeDetail(item.getProvider(), item.getThemeId(), item.getTheme());
+            });
+            node.setOnMouseClicked(e -> {
+                ThemeCatalog.Entry selected = item;
+                if (e.getButton() == MouseButton.PRIMARY && selected != null) {
+                    navigateTo(() -> showThemeDetail(selected.getProvider(), selected.getThemeId(), selected.getTheme()));
+                }
+            });
         }
-        String name = iconPath.getFileName().toString().toLowerCase();
-        if (name.endsWith(".webp")) {
-            WebView wv = new WebView();
-            wv.setPrefSize(size, size);
-            String url = iconPath.toUri().toString();
-            wv.getEngine().loadContent("<html><body style='margin:0;padding:0;background:transparent;'><img src='" + url + "' style='height:"+size+"px;width:"+size+"px;object-fit:contain;'/></body></html>");
-            return wv;
-        } else {
-            try {
-                Image img = new Image(iconPath.toUri().toString(), size, size, true, true);
-                ImageView iv = new ImageView(img);
-                iv.setFitWidth(size);
-                iv.setFitHeight(size);
-                return iv;
-            } catch (Exception e) {
-                FontIcon fallback = new FontIcon(MaterialDesignI.IMAGE);
-                fallback.setIconSize((int) size);
-                return fallback;
+
+        @Override public Node getNode() {
+            return node;
+        }
+
+        @Override public void update(ThemeCatalog.Entry entry) {
+            if (entry == item) return;
+            item = entry;
+            long id = generation.incrementAndGet();
+            if (entry == null) {
+                preview.setImage(null);
+                return;
+            }
+            name.setText(entry.getDisplayName());
+            provider.setText(entry.getProvider().getDisplayName());
+            Image cached = themeThumbnails.getIfPresent(entry);
+            showPreview(cached);
+            if (cached != null) return;
+            themeThumbnails.load(entry, () -> generation.get() == id).whenComplete((image, error) -> {
+                if (image == null) return;
+                Platform.runLater(() -> {
+                    if (generation.get() == id) showPreview(image);
+                });
+            });
+        }
+
+        private void showPreview(Image image) {
+            preview.setImage(image);
+            placeholder.setVisible(image == null);
+        }
+    }
+
+    private static class CatalogCell extends ListCell<ThemeCatalog.Entry> {
+        private final Label name = new Label();
+        private final Label details = new Label();
+        private final VBox content = new VBox(2, name, details);
+
+        CatalogCell() {
+            details.getStyleClass().add("text-muted");
+        }
+
+        @Override protected void updateItem(ThemeCatalog.Entry item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(null);
+            if (empty || item == null) { setGraphic(null); return; }
+            name.setText(item.getDisplayName());
+            String category = item.getTheme().getCategory();
+            details.setText(item.getProvider().getDisplayName() + (category != null ? " · " + category : ""));
+            setGraphic(content);
+        }
+    }
+
+    /**
+     * Provider row. Its nodes are created once per cell; recycling only swaps the text and the
+     * cached icon, which is decoded in the background on first use.
+     */
+    private class ProviderCell extends ListCell<ProviderInfo> {
+        private final ImageView iconView = new ImageView();
+        private final FontIcon fallbackIcon = new FontIcon(MaterialDesignI.IMAGE);
+        private final StackPane iconPane = new StackPane();
+        private final Label name = new Label();
+        private final HBox row = new HBox(10, iconPane, name);
+
+        ProviderCell() {
+            iconView.setFitWidth(ICON_SIZE);
+            iconView.setFitHeight(ICON_SIZE);
+            iconView.setPreserveRatio(true);
+            fallbackIcon.setIconSize(ICON_SIZE);
+            iconPane.setMinSize(ICON_SIZE, ICON_SIZE);
+            iconPane.setPrefSize(ICON_SIZE, ICON_SIZE);
+            name.getStyleClass().add("title-4");
+            row.setAlignment(Pos.CENTER_LEFT);
+        }
+
+        @Override protected void updateItem(ProviderInfo item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(null);
+            if (empty || item == null) { setGraphic(null); return; }
+            name.setText(item.getDisplayName());
+            Path iconPath = item.getIconPath();
+            Image icon = iconPath != null ? iconCache.getIfPresent(iconPath, ICON_SIZE) : null;
+            showIcon(icon);
+            if (icon == null && iconPath != null) {
+                iconCache.load(iconPath, ICON_SIZE).thenAccept(loaded -> {
+                    if (loaded == null) return;
+                    Platform.runLater(() -> {
+                        // The cell may have been reused for another provider in the meantime
+                        if (getItem() == item) showIcon(loaded);
+                    });
+                });
             }
+            setGraphic(row);
+        }
+
+        private void showIcon(Image icon) {
+            iconView.setImage(icon);
+            iconPane.getChildren().setAll(icon != null ? iconView : fallbackIcon);
         }
     }
     
@@ -385,16 +1053,28 @@ public class MainWindow {
         
         File selectedDir = chooser.showDialog(primaryStage);
         if (selectedDir != null) {
-            Path selectedPath = selectedDir.toPath();
-            ProgramValidator.ValidationResult validation = ProgramValidator.validateProgramDirectory(selectedPath);
-            if (validation.isValid()) {
+            validateProgramDirectory(selectedDir, () -> {
                 configManager.setSelectedProgramDir(selectedDir.getAbsolutePath());
                 showProviderSelection();
-            } else {
-                showErrorDialog("Invalid Directory", validation.getMessage());
-            }
+            });
         }
     }
+
+    /**
+     * Validate a program directory off the FX thread and run the action on it if it is valid
+     */
+    private void validateProgramDirectory(File dir, Runnable onValid) {
+        executionManager.supplyIo(() -> ProgramValidator.validateProgramDirectory(dir.toPath()))
+            .whenComplete((validation, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    showErrorDialog("Invalid Directory", "Could not check directory: " + error.getMessage());
+                } else if (validation.isValid()) {
+                    onValid.run();
+                } else {
+                    showErrorDialog("Invalid Directory", validation.getMessage());
+                }
+            }));
+    }
     
     private void showAddProviderDialog() {
         TextInputDialog dialog = new TextInputDialog();
@@ -421,10 +1101,13 @@ public class MainWindow {
         String programDir = configManager.getSelectedProgramDir();
         if (programDir.isEmpty()) {
             // Prompt to select directory first
+            viewLoader.cancel();
+            history.clear();
             contentPane.setCenter(createProgramDirPrompt());
         } else {
             showProviderSelection();
         }
+        onInitialViewLoaded();
     }
     
     private Pane createProgramDirPrompt() {
@@ -447,10 +1130,13 @@ public class MainWindow {
     
     private void installCurrentTheme() {
         if (currentProvider == null || currentThemeId == null) return;
+        // Read on the FX thread; navigation may change the current theme while the task runs
+        String providerId = currentProvider.getId();
+        String themeId = currentThemeId;
         headerInstallButton.setDisable(true);
         Task<Boolean> task = new Task<>() {
             @Override protected Boolean call() {
-                return themeInstaller.installTheme(currentProvider.getId(), currentThemeId);
+                return themeInstaller.installTheme(providerId, themeId);
             }
             @Override protected void succeeded() {
                 headerInstallButton.setDisable(false);
@@ -466,11 +1152,24 @@ public class MainWindow {
                 a.showAndWait();
             }
         };
-        new Thread(task).start();
+        executionManager.io().execute(task);
     }
 
     public void shutdown() {
+        configManager.removeReloadListener(configReloadListener);
+        stallDetector.stop();
+        logger.info("UI metrics:{}", metrics.summary());
+        metrics.report(configManager.getBaseDir().resolve(Metrics.LOG_FILE_NAME));
+        logger.info("WebView pool: {}, {}, {}", webViewPool.stats(), history, detailPrefetcher);
+        detailPrefetcher.clear();
+        releaseContentWebViews();
+        webViewPool.clear();
+        if (themeInstaller.isMarkdownRendererInitialized()) {
+            MarkdownRenderer renderer = themeInstaller.getMarkdownRenderer();
+            logger.info("Markdown render cache: {}, documents: {}", renderer.getCacheStats(), renderer.getDocumentCacheStats());
+        }
         themeInstaller.shutdown();
+        executionManager.shutdown();
     }
 
     private void updateProviders() {
@@ -488,6 +1187,12 @@ public class MainWindow {
                 Alert done = new Alert(ok ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR, ok ? "Providers updated." : "Some providers failed to update.");
                 done.setHeaderText(null);
                 done.showAndWait();
+                // Updated repositories may ship new icons and pages
+                iconCache.clear();
+                themeCatalog = null;
+                themeThumbnails.clear();
+                detailPrefetcher.clear();
+                history.clear();
                 showProviderSelection();
             }
             @Override protected void failed() {
@@ -497,13 +1202,26 @@ public class MainWindow {
                 err.showAndWait();
             }
         };
-        new Thread(task).start();
+        executionManager.io().execute(task);
+    }
+
+    private static String formatMoveProgress(FileTreeEngine.TreeProgress progress) {
+        String text = String.format("Moving providers %d%% (%d files)",
+                                    (int) (progress.getFraction() * 100), progress.getFilesDone());
+        long eta = progress.getEtaMillis();
+        if (eta >= 0) {
+            text += String.format(", about %ds left", Math.max(1, eta / 1000));
+        }
+        return text;
     }
 
     private void showSettings() {
+        viewTransitions.begin("settings");
         headerBackButton.setVisible(true);
         headerInstallButton.setVisible(false);
         headerTitle.setText("Settings");
+        currentRebuild = this::showSettings;
+        viewLoader.cancel();
         VBox box = new VBox(12);
         box.setPadding(new Insets(8));
 
@@ -516,11 +1234,47 @@ public class MainWindow {
         HBox progRow = new HBox(8, progLbl, progField, progSelect);
         HBox.setHgrow(progField, Priority.ALWAYS);
 
+        // Every program directory themes are installed to (e.g. stable, beta and modded builds)
+        Label targetsLbl = new Label("Install Targets");
+        ListView<String> targetsList = new ListView<>();
+        targetsList.getItems().setAll(configManager.getProgramDirs());
+        targetsList.setPrefHeight(120);
+        Button targetAdd = new Button("Add");
+        targetAdd.setGraphic(new FontIcon(MaterialDesignP.PLUS));
+        targetAdd.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Add Program Directory");
+            File sel = chooser.showDialog(primaryStage);
+            if (sel == null) return;
+            validateProgramDirectory(sel, () -> {
+                if (configManager.getSelectedProgramDir().isEmpty()) {
+                    configManager.setSelectedProgramDir(sel.getAbsolutePath());
+                } else {
+                    configManager.addProgramDir(sel.getAbsolutePath());
+                }
+                targetsList.getItems().setAll(configManager.getProgramDirs());
+                progField.setText(configManager.getSelectedProgramDir());
+            });
+        });
+        Button targetRemove = new Button("Remove");
+        targetRemove.setGraphic(new FontIcon(MaterialDesignD.DELETE));
+        targetRemove.disableProperty().bind(targetsList.getSelectionModel().selectedItemProperty().isNull());
+        targetRemove.setOnAction(e -> {
+            configManager.removeProgramDir(targetsList.getSelectionModel().getSelectedItem());
+            targetsList.getItems().setAll(configManager.getProgramDirs());
+            progField.setText(configManager.getSelectedProgramDir());
+        });
+        VBox targetButtons = new VBox(8, targetAdd, targetRemove);
+        HBox targetsRow = new HBox(8, targetsLbl, targetsList, targetButtons);
+        HBox.setHgrow(targetsList, Priority.ALWAYS);
+
         // Providers root
         Label provLbl = new Label("Providers Directory");
         TextField provField = new TextField(configManager.getProvidersRoot().toString());
         provField.setEditable(false);
         Button provSelect = new Button("Change");
+        Button provCancel = new Button("Cancel");
+        provCancel.setVisible(false);
         provSelect.setOnAction(e -> {
             DirectoryChooser chooser = new DirectoryChooser();
             chooser.setTitle("Select Providers Directory");
@@ -540,18 +1294,31 @@ public class MainWindow {
                     showErrorDialog("Error", "Failed to access selected directory: " + ex.getMessage());
                     return;
                 }
-                boolean moved = configManager.moveProvidersRoot(newRoot);
-                if (moved) {
-                    provField.setText(newRoot.toString());
-                } else {
-                    showErrorDialog("Move Failed", "Could not move providers to the new directory.");
-                }
+                provSelect.setDisable(true);
+                provCancel.setVisible(true);
+                headerStatus.setText("Moving providers...");
+                headerStatus.setVisible(true);
+                FileTreeEngine.Operation move = configManager.moveProvidersRootAsync(newRoot, progress ->
+                    Platform.runLater(() -> headerStatus.setText(formatMoveProgress(progress))));
+                provCancel.setOnAction(ev -> move.cancel());
+                move.getCompletion().whenComplete((result, error) -> Platform.runLater(() -> {
+                    provSelect.setDisable(false);
+                    provCancel.setVisible(false);
+                    headerStatus.setVisible(false);
+                    if (error == null && result.isSuccess()) {
+                        provField.setText(newRoot.toString());
+                    } else if (error == null && result.isCancelled()) {
+                        showErrorDialog("Move Cancelled", "Providers were left in " + configManager.getProvidersRoot() + ".");
+                    } else {
+                        showErrorDialog("Move Failed", "Could not move providers to the new directory.");
+                    }
+                }));
             }
         });
-        HBox provRow = new HBox(8, provLbl, provField, provSelect);
+        HBox provRow = new HBox(8, provLbl, provField, provSelect, provCancel);
         HBox.setHgrow(provField, Priority.ALWAYS);
 
-        box.getChildren().addAll(progRow, provRow);
+        box.getChildren().addAll(progRow, targetsRow, provRow);
         contentPane.setCenter(box);
     }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.ivan.themeprovider.ui;
+
+import com.vladsch.flexmark.ast.*;
+import com.vladsch.flexmark.ext.gfm.strikethrough.Strikethrough;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListItem;
+import com.vladsch.flexmark.ext.tables.*;
+import com.vladsch.flexmark.util.ast.Block;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Hyperlink;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Separator;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.*;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.text.TextFlow;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Renders a flexmark AST directly into lightweight JavaFX nodes ({@link TextFlow} paragraphs,
+ * {@link ImageView} images and {@link GridPane} tables) for the GFM subset that
+ * {@link com.ivan.themeprovider.MarkdownRenderer} enables. Documents using anything else, such
+ * as raw HTML, are rejected so the caller can fall back to a WebView.
+ * The nodes are not attached to a scene, so rendering may run off the FX thread.
+ */
+final class MarkdownNodeRenderer {
+    private static final Set<Class<?>> SUPPORTED_NODES = Set.of(
+        Document.class, Paragraph.class, Heading.class, com.vladsch.flexmark.ast.Text.class, TextBase.class,
+        Emphasis.class, StrongEmphasis.class, Strikethrough.class, Code.class, HtmlEntity.class,
+        SoftLineBreak.class, HardLineBreak.class, Link.class, AutoLink.class, MailLink.class,
+        com.vladsch.flexmark.ast.Image.class, FencedCodeBlock.class, IndentedCodeBlock.class,
+        BulletList.class, OrderedList.class, BulletListItem.class, OrderedListItem.class, TaskListItem.class,
+        BlockQuote.class, ThematicBreak.class, Reference.class,
+        TableBlock.class, TableHead.class, TableBody.class, TableRow.class, TableCell.class, TableSeparator.class);
+    // Formats javafx.scene.image.Image decodes
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "bmp");
+    private static final double MAX_IMAGE_WIDTH = 900;
+    private static final String STYLESHEET = MarkdownNodeRenderer.class.getResource("markdown.css").toExternalForm();
+
+    private final Consumer<String> linkHandler;
+
+    /**
+     * @param linkHandler Called on the FX thread with the URL of a clicked link
+     */
+    MarkdownNodeRenderer(Consumer<String> linkHandler) {
+        this.linkHandler = linkHandler;
+    }
+
+    /**
+     * Build the page for a parsed document
+     *
+     * @param baseDir Directory relative image paths are resolved against
+     * @return A scrollable page, or null if the document needs the WebView renderer
+     */
+    Region render(Document document, Path baseDir) {
+        if (!supports(document, baseDir)) {
+            return null;
+        }
+        VBox body = new VBox(12);
+        body.getStyleClass().add("markdown-view");
+        body.getStylesheets().add(STYLESHEET);
+        appendBlocks(document, body, baseDir);
+        ScrollPane scroll = new ScrollPane(body);
+        scroll.setFitToWidth(true);
+        return scroll;
+    }
+
+    /**
+     * Whether {@link #render} can build the document; thread-safe
+     */
+    boolean supports(Document document, Path baseDir) {
+        return isSupported(document, baseDir);
+    }
+
+    private static boolean isSupported(Node node, Path baseDir) {
+        if (!SUPPORTED_NODES.contains(node.getClass())) {
+            return false;
+        }
+        if (node instanceof com.vladsch.flexmark.ast.Image) {
+            URI uri = resolveUrl(((com.vladsch.flexmark.ast.Image) node).getUrl().unescape(), baseDir);
+            if (uri == null || !IMAGE_EXTENSIONS.contains(extensionOf(uri))) {
+                return false;
+            }
+        }
+        for (Node child : node.getChildren()) {
+            if (!isSupported(child, baseDir)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Blocks
+
+    private void appendBlocks(Node parent, Pane target, Path baseDir) {
+        for (Node child : parent.getChildren()) {
+            javafx.scene.Node block = renderBlock(child, baseDir);
+            if (block != null) {
+                target.getChildren().add(block);
+            }
+        }
+    }
+
+    private javafx.scene.Node renderBlock(Node node, Path baseDir) {
+        if (node instanceof Paragraph) {
+            return inlineFlow(node, baseDir);
+        }
+        if (node instanceof Heading) {
+            TextFlow flow = inlineFlow(node, baseDir);
+            flow.getStyleClass().add("md-h" + ((Heading) node).getLevel());
+            return flow;
+        }
+        if (node instanceof FencedCodeBlock || node instanceof IndentedCodeBlock) {
+            String code = ((Block) node).getContentChars().toString().stripTrailing();
+            Text text = new Text(code);
+            text.getStyleClass().addAll("md-text", "md-code");
+            TextFlow flow = new TextFlow(text);
+            flow.getStyleClass().add("md-code-block");
+            return flow;
+        }
+        if (node instanceof ListBlock) {
+            return renderList((ListBlock) node, baseDir);
+        }
+        if (node instanceof BlockQuote) {
+            VBox quote = new VBox(8);
+            quote.getStyleClass().add("md-blockquote");
+            appendBlocks(node, quote, baseDir);
+            return quote;
+        }
+        if (node instanceof ThematicBreak) {
+            return new Separator();
+        }
+        if (node instanceof TableBlock) {
+            return renderTable((TableBlock) node, baseDir);
+        }
+        // Reference definitions render nothing
+        return null;
+    }
+
+    private VBox renderList(ListBlock list, Path baseDir) {
+        VBox box = new VBox(4);
+        int number = list instanceof OrderedList ? ((OrderedList) list).getStartNumber() : 0;
+        for (Node item : list.getChildren()) {
+            javafx.scene.Node marker;
+            if (item instanceof TaskListItem) {
+                CheckBox check = new CheckBox();
+                check.setSelected(((TaskListItem) item).isItemDoneMarker());
+                // Read-only without the faded look of a disabled control
+                check.setMouseTransparent(true);
+                check.setFocusTraversable(false);
+                marker = check;
+            } else {
+                Label label = new Label(list instanceof OrderedList ? (number++) + "." : "•");
+                label.setMinWidth(Region.USE_PREF_SIZE);
+                marker = label;
+            }
+            VBox content = new VBox(4);
+            appendBlocks(item, content, baseDir);
+            HBox row = new HBox(8, marker, content);
+            row.setAlignment(Pos.TOP_LEFT);
+            HBox.setHgrow(content, Priority.ALWAYS);
+            box.getChildren().add(row);
+        }
+        return box;
+    }
+
+    private GridPane renderTable(TableBlock table, Path baseDir) {
+        GridPane grid = new GridPane();
+        grid.getStyleClass().add("md-table");
+        grid.setMaxWidth(Region.USE_PREF_SIZE);
+        int row = 0;
+        for (Node section : table.getChildren()) {
+            if (!(section instanceof TableHead) && !(section instanceof TableBody)) continue;
+            for (Node tableRow : section.getChildren()) {
+                int column = 0;
+                for (Node child : tableRow.getChildren()) {
+                    if (!(child instanceof TableCell)) continue;
+                    TableCell cell = (TableCell) child;
+                    TextFlow flow = inlineFlow(cell, baseDir);
+                    flow.setTextAlignment(toTextAlignment(cell.getAlignment()));
+                    StackPane pane = new StackPane(flow);
+                    pane.getStyleClass().add("md-cell");
+                    if (cell.isHeader()) {
+                        pane.getStyleClass().add("md-header-cell");
+                    }
+                    int span = Math.max(1, cell.getSpan());
+                    grid.add(pane, column, row, span, 1);
+                    column += span;
+                }
+                row++;
+            }
+        }
+        return grid;
+    }
+
+    private static TextAlignment toTextAlignment(TableCell.Alignment alignment) {
+        if (alignment == TableCell.Alignment.CENTER) return TextAlignment.CENTER;
+        if (alignment == TableCell.Alignment.RIGHT) return TextAlignment.RIGHT;
+        return TextAlignment.LEFT;
+    }
+
+    // Inlines
+
+    private TextFlow inlineFlow(Node parent, Path baseDir) {
+        TextFlow flow = new TextFlow();
+        appendInlines(parent, flow, Collections.emptyList(), baseDir);
+        return flow;
+    }
+
+    private void appendInlines(Node parent, TextFlow flow, List<String> styles, Path baseDir) {
+        for (Node child : parent.getChildren()) {
+            if (child instanceof com.vladsch.flexmark.ast.Text || child instanceof HtmlEntity) {
+                addText(flow, child.getChars().unescape(), styles);
+            } else if (child instanceof SoftLineBreak) {
+                addText(flow, " ", styles);
+            } else if (child instanceof HardLineBreak) {
+                addText(flow, "\n", styles);
+            } else if (child instanceof Emphasis) {
+                appendInlines(child, flow, with(styles, "md-em"), baseDir);
+            } else if (child instanceof StrongEmphasis) {
+                appendInlines(child, flow, with(styles, "md-strong"), baseDir);
+            } else if (child instanceof Strikethrough) {
+                appendInlines(child, flow, with(styles, "md-strike"), baseDir);
+            } else if (child instanceof Code) {
+                addText(flow, ((Code) child).getText().toString(), with(styles, "md-code"));
+            } else if (child instanceof Link) {
+                String text = collectText(child);
+                String url = ((Link) child).getUrl().unescape();
+                flow.getChildren().add(hyperlink(text.isBlank() ? url : text, url));
+            } else if (child instanceof AutoLink) {
+                String url = ((AutoLink) child).getText().toString();
+                flow.getChildren().add(hyperlink(url, url));
+            } else if (child instanceof MailLink) {
+                String address = ((MailLink) child).getText().toString();
+                flow.getChildren().add(hyperlink(address, "mailto:" + address));
+            } else if (child instanceof com.vladsch.flexmark.ast.Image) {
+                com.vladsch.flexmark.ast.Image image = (com.vladsch.flexmark.ast.Image) child;
+                flow.getChildren().add(imageView(resolveUrl(image.getUrl().unescape(), baseDir)));
+            } else {
+                // TextBase and other containers
+                appendInlines(child, flow, styles, baseDir);
+            }
+        }
+    }
+
+    private static void addText(TextFlow flow, String content, List<String> styles) {
+        Text text = new Text(content);
+        text.getStyleClass().add("md-text");
+        text.getStyleClass().addAll(styles);
+        flow.getChildren().add(text);
+    }
+
+    private Hyperlink hyperlink(String text, String url) {
+        Hyperlink link = new Hyperlink(text);
+        link.getStyleClass().add("md-link");
+        link.setOnAction(e -> linkHandler.accept(url));
+        return link;
+    }
+
+    private static ImageView imageView(URI uri) {
+        javafx.scene.image.Image image = new javafx.scene.image.Image(uri.toString(), true);
+        ImageView view = new ImageView(image);
+        view.setPreserveRatio(true);
+        // Scale down wide images once their size is known
+        image.widthProperty().addListener((obs, old, width) -> {
+            if (width.doubleValue() > MAX_IMAGE_WIDTH) {
+                view.setFitWidth(MAX_IMAGE_WIDTH);
+            }
+        });
+        return view;
+    }
+
+    private static String collectText(Node node) {
+        StringBuilder sb = new StringBuilder();
+        for (Node child : node.getChildren()) {
+            if (child instanceof com.vladsch.flexmark.ast.Text || child instanceof Code || child instanceof HtmlEntity) {
+                sb.append(child instanceof Code ? ((Code) child).getText().toString() : child.getChars().unescape());
+            } else {
+                sb.append(collectText(child));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> with(List<String> styles, String style) {
+        List<String> result = new ArrayList<>(styles);
+        result.add(style);
+        return result;
+    }
+
+    private static URI resolveUrl(String url, Path baseDir) {
+        try {
+            URI uri = new URI(url);
+            if (uri.isAbsolute()) {
+                return uri;
+            }
+            return baseDir != null ? baseDir.toUri().resolve(uri) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String extensionOf(URI uri) {
+        String path = uri.getPath();
+        if (path == null) return "";
+        int dot = path.lastIndexOf('.');
+        return dot >= 0 ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
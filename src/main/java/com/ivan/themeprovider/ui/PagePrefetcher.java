@@ -0,0 +1,118 @@
+package com.ivan.themeprovider.ui;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Speculatively builds pages the user is likely to open next (hovered or selected items).
+ * Only the most recent request runs: a new request cancels the previous one if it has not
+ * started. Finished pages wait in a small cache until they are taken; a taken page is removed
+ * since a built node can only be shown once. Call from the FX thread.
+ */
+final class PagePrefetcher<K, V> {
+    private final Function<K, V> loader;
+    private final Executor executor;
+    private final int maxEntries;
+    private final LinkedHashMap<K, Prefetch<V>> pages = new LinkedHashMap<>();
+    private K pendingKey;
+    private long hits;
+    private long misses;
+
+    private static final class Prefetch<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Claimed by the worker when it starts, or by take()/cancel() before that
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * Drop the prefetch if its worker has not started yet
+         */
+        private boolean cancelIfNotStarted() {
+            if (!claimed.compareAndSet(false, true)) return false;
+            future.cancel(false);
+            return true;
+        }
+    }
+
+    /**
+     * @param loader Builds a page off the FX thread; may return null
+     */
+    PagePrefetcher(Function<K, V> loader, Executor executor, int maxEntries) {
+        this.loader = loader;
+        this.executor = executor;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Start building the page for the key unless it is already built or being built
+     */
+    void prefetch(K key) {
+        if (key == null || pages.containsKey(key)) return;
+        // The previous guess is no longer the likely next page; if it is already being built it
+        // finishes and stays cached
+        if (pendingKey != null) {
+            Prefetch<V> pending = pages.get(pendingKey);
+            if (pending != null && pending.cancelIfNotStarted()) {
+                pages.remove(pendingKey);
+            }
+        }
+        Prefetch<V> prefetch = new Prefetch<>();
+        executor.execute(() -> {
+            if (!prefetch.claimed.compareAndSet(false, true)) return;
+            try {
+                prefetch.future.complete(loader.apply(key));
+            } catch (RuntimeException e) {
+                prefetch.future.completeExceptionally(e);
+            }
+        });
+        pages.put(key, prefetch);
+        pendingKey = key;
+        trim();
+    }
+
+    /**
+     * Hand over a prefetched page that is built or being built. A prefetch still queued behind
+     * other background work is dropped; the caller is faster loading the page itself.
+     *
+     * @return The page future, or null if the caller has to load the page
+     */
+    CompletableFuture<V> take(K key) {
+        Prefetch<V> prefetch = pages.remove(key);
+        if (key.equals(pendingKey)) {
+            pendingKey = null;
+        }
+        if (prefetch == null || prefetch.cancelIfNotStarted() || prefetch.future.isCompletedExceptionally()) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return prefetch.future;
+    }
+
+    void clear() {
+        for (Prefetch<V> prefetch : pages.values()) {
+            prefetch.cancelIfNotStarted();
+        }
+        pages.clear();
+        pendingKey = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PagePrefetcher{hits=%d, misses=%d, cached=%d}", hits, misses, pages.size());
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<K, Prefetch<V>>> oldestFirst = pages.entrySet().iterator();
+        while (pages.size() > maxEntries && oldestFirst.hasNext()) {
+            Map.Entry<K, Prefetch<V>> entry = oldestFirst.next();
+            if (entry.getKey().equals(pendingKey)) continue;
+            entry.getValue().cancelIfNotStarted();
+            oldestFirst.remove();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ivan.themeprovider.ui;
+
+import com.ivan.themeprovider.Metrics;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the JavaFX application thread for stalls.
+ * A watchdog thread posts a heartbeat to the FX thread at a fixed interval; the delay until it
+ * runs is recorded as {@code fx.latency}. This is an estimate of how long input and pulses would
+ * have waited, sampled every interval, not a measurement of the gaps between actual pulses.
+ * While a heartbeat is overdue by more than the threshold the FX thread's stack is sampled, and
+ * once it runs the stall is logged with its most frequent stack. The CSS and layout part of each
+ * pulse is recorded as {@code fx.layout}.
+ */
+final class StallDetector {
+    private static final Logger logger = LoggerFactory.getLogger(StallDetector.class);
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 100;
+    private static final long SAMPLE_INTERVAL_MILLIS = 50;
+    private static final int MAX_SAMPLES = 200;
+    private static final int MAX_LOGGED_FRAMES = 30;
+
+    private final Metrics metrics;
+    private final long thresholdMillis;
+    private final Thread watchdog;
+    private volatile Thread fxThread;
+    private volatile boolean running;
+    // FX thread only
+    private long layoutStartNanos;
+
+    StallDetector(Metrics metrics, long thresholdMillis) {
+        this.metrics = metrics;
+        this.thresholdMillis = thresholdMillis;
+        this.watchdog = new Thread(this::watch, "fx-stall-detector");
+        this.watchdog.setDaemon(true);
+    }
+
+    /**
+     * Start watching; call from the FX thread
+     */
+    void start(Scene scene) {
+        fxThread = Thread.currentThread();
+        scene.addPreLayoutPulseListener(() -> layoutStartNanos = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> {
+            if (layoutStartNanos != 0) {
+                metrics.histogram("fx.layout").record((System.nanoTime() - layoutStartNanos) / 1_000_000);
+            }
+        });
+        running = true;
+        watchdog.start();
+    }
+
+    void stop() {
+        running = false;
+        watchdog.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                long[] ranAt = new long[1];
+                CountDownLatch heartbeat = new CountDownLatch(1);
+                long posted = System.nanoTime();
+                Platform.runLater(() -> {
+                    ranAt[0] = System.nanoTime();
+                    heartbeat.countDown();
+                });
+                List<StackTraceElement[]> samples = new ArrayList<>();
+                if (!heartbeat.await(thresholdMillis, TimeUnit.MILLISECONDS)) {
+                    // Blocked: sample what the FX thread is doing until it gets to the heartbeat
+                    do {
+                        if (samples.size() < MAX_SAMPLES) {
+                            samples.add(fxThread.getStackTrace());
+                        }
+                    } while (!heartbeat.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS) && running);
+                }
+                if (!running) return;
+                // The latch orders the write of ranAt before this read
+                long latency = (ranAt[0] - posted) / 1_000_000;
+                metrics.histogram("fx.latency").record(latency);
+                if (latency >= thresholdMillis) {
+                    metrics.counter("fx.stalls").increment();
+                    metrics.histogram("fx.stall").record(latency);
+                    logStall(latency, samples);
+                }
+                Thread.sleep(HEARTBEAT_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void logStall(long millis, List<StackTraceElement[]> samples) {
+        if (samples.isEmpty()) {
+            logger.warn("FX thread blocked for {} ms", millis);
+            return;
+        }
+        // The stack seen most often is where the time went
+        Map<List<StackTraceElement>, Integer> counts = new HashMap<>();
+        for (StackTraceElement[] sample : samples) {
+            List<StackTraceElement> top = Arrays.asList(sample).subList(0, Math.min(sample.length, MAX_LOGGED_FRAMES));
+            counts.merge(top, 1, Integer::sum);
+        }
+        Map.Entry<List<StackTraceElement>, Integer> hottest = Collections.max(counts.entrySet(), Map.Entry.comparingByValue());
+        StringBuilder stack = new StringBuilder();
+        for (StackTraceElement frame : hottest.getKey()) {
+            stack.append(System.lineSeparator()).append("\tat ").append(frame);
+        }
+        logger.warn("FX thread blocked for {} ms; most frequent stack in {} of {} samples:{}",
+                    millis, hottest.getValue(), samples.size(), stack);
+    }
+}
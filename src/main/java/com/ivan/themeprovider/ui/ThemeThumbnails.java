@@ -0,0 +1,89 @@
+package com.ivan.themeprovider.ui;
+
+import com.ivan.themeprovider.PreviewThumbnails;
+import com.ivan.themeprovider.ThemeCatalog;
+import javafx.scene.image.Image;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Preview thumbnails of catalog entries for the grid view.
+ * Finding and downsampling a preview runs on the given (background) executor and ends in the
+ * on-disk thumbnail cache; the small decoded images are then held in a byte-bounded
+ * {@link IconCache}, so recycled tiles get them back without touching the disk.
+ */
+final class ThemeThumbnails {
+    private static final long MAX_DECODED_BYTES = 32L * 1024 * 1024;
+
+    private final Supplier<PreviewThumbnails> previews;
+    private final Executor executor;
+    private final IconCache images;
+    // Thumbnail file per entry; empty if the theme has no usable preview image
+    private final Map<ThemeCatalog.Entry, Optional<Path>> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param previews Supplies the disk cache; only called on the executor
+     */
+    ThemeThumbnails(Supplier<PreviewThumbnails> previews, Executor executor) {
+        this.previews = previews;
+        this.executor = executor;
+        this.images = new IconCache(executor, MAX_DECODED_BYTES);
+    }
+
+    /**
+     * @return The decoded thumbnail, or null if it is not loaded (yet) or the theme has none
+     */
+    Image getIfPresent(ThemeCatalog.Entry entry) {
+        Optional<Path> file = files.get(entry);
+        return file != null && file.isPresent() ? images.getIfPresent(file.get(), PreviewThumbnails.THUMBNAIL_WIDTH) : null;
+    }
+
+    /**
+     * Load the thumbnail in the background. Each step first checks whether it is still wanted,
+     * so tiles scrolled past before their turn cost nothing.
+     *
+     * @param wanted Whether the caller still shows the entry
+     * @return Completes with the thumbnail, or null if the theme has none or it is no longer wanted
+     */
+    CompletableFuture<Image> load(ThemeCatalog.Entry entry, BooleanSupplier wanted) {
+        Optional<Path> known = files.get(entry);
+        CompletableFuture<Optional<Path>> file = known != null
+            ? CompletableFuture.completedFuture(known)
+            : CompletableFuture.supplyAsync(() -> wanted.getAsBoolean() ? resolve(entry) : Optional.empty(), executor);
+        return file.thenCompose(thumbnail -> {
+            if (thumbnail.isEmpty() || !wanted.getAsBoolean()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Path png = thumbnail.get();
+            return images.load(png, PreviewThumbnails.THUMBNAIL_WIDTH).thenApply(image -> {
+                if (image == null) {
+                    // The disk cache evicted the PNG meanwhile; resolve (and recreate) it next time
+                    files.remove(entry, thumbnail);
+                    images.invalidate(png, PreviewThumbnails.THUMBNAIL_WIDTH);
+                }
+                return image;
+            });
+        });
+    }
+
+    /**
+     * Forget resolved previews, e.g. after providers were updated
+     */
+    void clear() {
+        files.clear();
+        images.clear();
+    }
+
+    private Optional<Path> resolve(ThemeCatalog.Entry entry) {
+        Optional<Path> file = Optional.ofNullable(previews.get().getThumbnail(entry.getProvider(), entry.getTheme()));
+        files.put(entry, file);
+        return file;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ivan.themeprovider.ui;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Virtualized grid: a {@link ListView} whose rows hold as many tiles as fit its width.
+ * Only rows on screen have cells, so tiles, and whatever they load, exist only for visible items;
+ * scrolling recycles them. The rows follow the source list; items appended to it, such as search
+ * result batches, only touch the last row. All methods run on the FX thread.
+ */
+final class ThumbnailGrid<T> {
+    private static final double SPACING = 8;
+    // Room for the vertical scroll bar and the cell padding
+    private static final double ROW_INSETS = 32;
+
+    /**
+     * A reusable tile; a row cell keeps its tiles and only swaps their items
+     */
+    interface Tile<T> {
+        Node getNode();
+
+        /**
+         * @param item The item to show, or null to clear the tile
+         */
+        void update(T item);
+    }
+
+    private final ObservableList<T> items;
+    private final double tileWidth;
+    private final Supplier<Tile<T>> tileFactory;
+    private final ListView<List<T>> view = new ListView<>();
+    private int columns = 1;
+    // Number of source items the rows cover
+    private int covered;
+
+    ThumbnailGrid(ObservableList<T> items, double tileWidth, Supplier<Tile<T>> tileFactory) {
+        this.items = items;
+        this.tileWidth = tileWidth;
+        this.tileFactory = tileFactory;
+        view.setCellFactory(lv -> new RowCell());
+        view.setFocusTraversable(false);
+        view.widthProperty().addListener((obs, previous, width) -> {
+            int fitting = Math.max(1, (int) ((width.doubleValue() - ROW_INSETS + SPACING) / (tileWidth + SPACING)));
+            if (fitting != columns) {
+                columns = fitting;
+                rebuild();
+            }
+        });
+        items.addListener(this::onItemsChanged);
+        rebuild();
+    }
+
+    ListView<List<T>> getView() {
+        return view;
+    }
+
+    private void onItemsChanged(ListChangeListener.Change<? extends T> change) {
+        boolean appended = change.next() && change.wasAdded() && !change.wasRemoved()
+                           && change.getFrom() == covered && !change.next();
+        if (appended) {
+            append();
+        } else {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        covered = 0;
+        view.getItems().clear();
+        append();
+    }
+
+    private void append() {
+        List<List<T>> rows = view.getItems();
+        int start = covered;
+        if (!rows.isEmpty() && rows.get(rows.size() - 1).size() < columns) {
+            // Fill up the incomplete last row
+            start -= rows.remove(rows.size() - 1).size();
+        }
+        List<List<T>> added = new ArrayList<>();
+        for (int i = start; i < items.size(); i += columns) {
+            added.add(List.copyOf(items.subList(i, Math.min(i + columns, items.size()))));
+        }
+        rows.addAll(added);
+        covered = items.size();
+    }
+
+    private class RowCell extends ListCell<List<T>> {
+        private final List<Tile<T>> tiles = new ArrayList<>();
+        private final HBox row = new HBox(SPACING);
+
+        RowCell() {
+            row.setAlignment(Pos.TOP_LEFT);
+        }
+
+        @Override protected void updateItem(List<T> item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(null);
+            if (empty || item == null) {
+                for (Tile<T> tile : tiles) {
+                    tile.update(null);
+                }
+                setGraphic(null);
+                return;
+            }
+            while (tiles.size() < item.size()) {
+                Tile<T> tile = tileFactory.get();
+                tile.getNode().managedProperty().bind(tile.getNode().visibleProperty());
+                tiles.add(tile);
+                row.getChildren().add(tile.getNode());
+            }
+            for (int i = 0; i < tiles.size(); i++) {
+                T tileItem = i < item.size() ? item.get(i) : null;
+                tiles.get(i).update(tileItem);
+                tiles.get(i).getNode().setVisible(tileItem != null);
+            }
+            setGraphic(row);
+        }
+    }
+}
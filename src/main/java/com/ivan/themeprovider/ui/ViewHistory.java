@@ -0,0 +1,147 @@
+package com.ivan.themeprovider.ui;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Back stack of built views. Going back re-attaches the previous view as it was left
+ * (scroll position, selection, loaded content) instead of building it again.
+ * Views are held softly and within a byte budget estimated from their scene graph; when a
+ * view is dropped the entry falls back to rebuilding it. All methods run on the FX thread.
+ */
+final class ViewHistory {
+    private static final long NODE_BYTES = 512;
+    private static final long LIST_ITEM_BYTES = 64;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private long totalBytes;
+    private long restored;
+    private long rebuilt;
+
+    static final class Entry {
+        private SoftReference<Node> view;
+        private long bytes;
+        private final Runnable restoreState;
+        private final Runnable rebuild;
+
+        private Entry(Node view, long bytes, Runnable restoreState, Runnable rebuild) {
+            this.view = view != null ? new SoftReference<>(view) : null;
+            this.bytes = bytes;
+            this.restoreState = restoreState;
+            this.rebuild = rebuild;
+        }
+
+        private Node getView() {
+            return view != null ? view.get() : null;
+        }
+
+        private void dropView() {
+            view = null;
+            bytes = 0;
+        }
+    }
+
+    ViewHistory(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Remember the view being left
+     *
+     * @param view The built view, or null if it cannot be reused and has to be rebuilt
+     * @param restoreState Restores the header and navigation state that belongs to the view
+     * @param rebuild Builds the view again, including its state, if it was dropped
+     */
+    void push(Node view, Runnable restoreState, Runnable rebuild) {
+        long bytes = view != null ? estimateBytes(view) : 0;
+        entries.push(new Entry(view, bytes, restoreState, rebuild));
+        totalBytes += bytes;
+        trim();
+    }
+
+    /**
+     * Go back one view
+     *
+     * @return The view to show, already with its state restored, or null if the history is empty
+     *         or the view had to be rebuilt (the rebuild has then been started)
+     */
+    Node back() {
+        Entry entry = entries.poll();
+        if (entry == null) return null;
+        totalBytes -= entry.bytes;
+        Node view = entry.getView();
+        if (view != null) {
+            restored++;
+            entry.restoreState.run();
+            return view;
+        }
+        rebuilt++;
+        entry.rebuild.run();
+        return null;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ViewHistory{entries=%d, bytes=%d, restored=%d, rebuilt=%d}",
+                             entries.size(), totalBytes, restored, rebuilt);
+    }
+
+    private void trim() {
+        while (entries.size() > maxEntries) {
+            totalBytes -= entries.removeLast().bytes;
+        }
+        // Over budget: the oldest views are rebuilt instead of kept
+        Iterator<Entry> oldestFirst = entries.descendingIterator();
+        while (totalBytes > maxBytes && oldestFirst.hasNext()) {
+            Entry entry = oldestFirst.next();
+            totalBytes -= entry.bytes;
+            entry.dropView();
+        }
+    }
+
+    /**
+     * Rough retained size of a view: a fixed cost per node, decoded images and list items
+     */
+    static long estimateBytes(Node node) {
+        long bytes = NODE_BYTES;
+        if (node instanceof ImageView) {
+            Image image = ((ImageView) node).getImage();
+            if (image != null) {
+                bytes += (long) (image.getWidth() * image.getHeight() * 4);
+            }
+        } else if (node instanceof ListView) {
+            bytes += ((ListView<?>) node).getItems().size() * LIST_ITEM_BYTES;
+        } else if (node instanceof ScrollPane && ((ScrollPane) node).getContent() != null) {
+            // The content is only among the children once the skin exists
+            bytes += estimateBytes(((ScrollPane) node).getContent());
+            return bytes;
+        }
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                bytes += estimateBytes(child);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ivan.themeprovider.ui;
+
+import com.ivan.themeprovider.ExecutionManager;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Loads the data of the current view off the FX thread.
+ * Every load or cancel starts a new generation; work of an older generation is skipped if it
+ * has not started yet, and its result is dropped once the user has navigated elsewhere.
+ */
+final class ViewLoader {
+    private static final Logger logger = LoggerFactory.getLogger(ViewLoader.class);
+
+    private final ExecutionManager executionManager;
+    private final AtomicLong generation = new AtomicLong();
+    // Generation whose result was delivered or that needed no loading; FX thread only
+    private long completed;
+    private Runnable settledListener = () -> {};
+
+    ViewLoader(ExecutionManager executionManager) {
+        this.executionManager = executionManager;
+    }
+
+    /**
+     * Called on the FX thread whenever the current view has its content: its load delivered a
+     * result or failed, or it needed no loading
+     */
+    void setSettledListener(Runnable settledListener) {
+        this.settledListener = settledListener;
+    }
+
+    /**
+     * Load blocking I/O work (directory listings, YAML, git) for a newly shown view
+     */
+    <T> void loadIo(Callable<T> work, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        long id = generation.incrementAndGet();
+        deliver(id, executionManager.supplyIo(guard(id, work)), onLoaded, onFailed);
+    }
+
+    /**
+     * Load CPU-bound work (markdown rendering) for a newly shown view
+     */
+    <T> void loadCpu(Callable<T> work, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        long id = generation.incrementAndGet();
+        deliver(id, executionManager.supplyCpu(guard(id, work)), onLoaded, onFailed);
+    }
+
+    /**
+     * Wait for work already started elsewhere, such as a prefetch, without blocking a thread.
+     * If it fails or was cancelled, the data is loaded with {@code work} on the CPU pool instead.
+     *
+     * @param started Running work, or null to load with {@code work} right away
+     */
+    <T> void loadCpu(CompletableFuture<T> started, Callable<T> work, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        if (started == null) {
+            loadCpu(work, onLoaded, onFailed);
+            return;
+        }
+        long id = generation.incrementAndGet();
+        CompletableFuture<T> result = started.handle((value, error) -> error == null
+                ? CompletableFuture.completedFuture(value)
+                : executionManager.supplyCpu(guard(id, work)))
+            .thenCompose(future -> future);
+        deliver(id, result, onLoaded, onFailed);
+    }
+
+    /**
+     * Drop any pending load, e.g. when a view without background data is shown
+     */
+    void cancel() {
+        completed = generation.incrementAndGet();
+        settledListener.run();
+    }
+
+    /**
+     * Whether the current view is still waiting for its data
+     */
+    boolean isPending() {
+        return completed != generation.get();
+    }
+
+    private <T> Callable<T> guard(long id, Callable<T> work) {
+        return () -> {
+            if (generation.get() != id) {
+                throw new CancellationException("View was left before loading started");
+            }
+            return work.call();
+        };
+    }
+
+    private <T> void deliver(long id, CompletableFuture<T> future, Consumer<T> onLoaded, Consumer<Throwable> onFailed) {
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (generation.get() != id) return;
+            completed = id;
+            if (error == null) {
+                onLoaded.accept(value);
+                settledListener.run();
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) return;
+            logger.error("Failed to load view", cause);
+            onFailed.accept(cause);
+            settledListener.run();
+        }));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ivan.themeprovider.ui;
+
+import com.ivan.themeprovider.Metrics;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time-to-interactive of view transitions: from the navigation to the first pulse laid out after
+ * the view received its content. Each view has a {@code view.<name>} histogram, and a
+ * {@code view.<name>.back} one for reaching it with Back; a transition left before its content
+ * arrived counts in {@code .abandoned} under the same name. FX thread only.
+ */
+final class ViewTransitions {
+    private static final Logger logger = LoggerFactory.getLogger(ViewTransitions.class);
+
+    private final Scene scene;
+    private final Metrics metrics;
+    private final Runnable onPulse = this::onPulse;
+    private String view;
+    // Name of the view shown last
+    private String shown;
+    private boolean navigatingBack;
+    private long startNanos;
+    // The current view has its content and waits for the pulse that lays it out
+    private boolean ready;
+    private boolean listening;
+
+    ViewTransitions(Scene scene, Metrics metrics) {
+        this.scene = scene;
+        this.metrics = metrics;
+    }
+
+    /**
+     * A view is being shown
+     */
+    void begin(String name) {
+        if (view != null) {
+            metrics.counter("view." + view + ".abandoned").increment();
+        }
+        shown = name;
+        view = navigatingBack ? name + ".back" : name;
+        startNanos = System.nanoTime();
+        ready = false;
+    }
+
+    /**
+     * Name of the view shown last, to begin its transition again when it is re-attached
+     */
+    String current() {
+        return shown;
+    }
+
+    /**
+     * Run a Back navigation; the views it shows are recorded under their {@code .back} name
+     */
+    void back(Runnable navigation) {
+        navigatingBack = true;
+        try {
+            navigation.run();
+        } finally {
+            navigatingBack = false;
+        }
+    }
+
+    /**
+     * The current view has its content; it is interactive once the next pulse has laid it out
+     */
+    void contentReady() {
+        if (view == null) return;
+        ready = true;
+        if (!listening) {
+            listening = true;
+            scene.addPostLayoutPulseListener(onPulse);
+        }
+        Platform.requestNextPulse();
+    }
+
+    private void onPulse() {
+        scene.removePostLayoutPulseListener(onPulse);
+        listening = false;
+        if (view == null || !ready) return;
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        metrics.histogram("view." + view).record(millis);
+        logger.debug("View {} interactive after {} ms", view, millis);
+        view = null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ivan.themeprovider.ui;
+
+import javafx.scene.web.WebView;
+
+import java.util.*;
+
+/**
+ * Small pool of WebViews reused across homepage and theme detail navigations.
+ * Creating a WebView starts a new WebKit page, which is slow and memory hungry; a released
+ * view is blanked and handed out again with its engine already initialized.
+ * All methods must be called on the FX thread.
+ */
+final class WebViewPool {
+    private static final String BLANK_PAGE = "<html><body></body></html>";
+
+    private final int maxIdle;
+    private final Deque<WebView> idle = new ArrayDeque<>();
+    private final Map<WebView, Long> inUse = new IdentityHashMap<>();
+    private long created;
+    private long reused;
+    private long peakBytes;
+
+    WebViewPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Create idle views up front, so the first page does not pay for WebKit initialization
+     */
+    void prewarm(int count) {
+        while (idle.size() + inUse.size() < count && idle.size() < maxIdle) {
+            idle.push(newWebView());
+        }
+    }
+
+    /**
+     * Take an idle view or create one; return it with {@link #release} when its page is left
+     */
+    WebView acquire() {
+        WebView view = idle.poll();
+        if (view != null) {
+            reused++;
+        } else {
+            view = newWebView();
+        }
+        inUse.put(view, 0L);
+        return view;
+    }
+
+    /**
+     * Load a document into an acquired view
+     */
+    void load(WebView view, String html) {
+        view.getEngine().loadContent(html);
+        if (inUse.containsKey(view)) {
+            // Documents are held as at most two bytes per char in the page
+            inUse.put(view, (long) html.length() * 2);
+            peakBytes = Math.max(peakBytes, loadedBytes());
+        }
+    }
+
+    /**
+     * Blank the page so its document, images and scripts can be freed, and keep the view for reuse
+     */
+    void release(WebView view) {
+        if (inUse.remove(view) == null) return;
+        view.getEngine().loadContent(BLANK_PAGE);
+        if (idle.size() < maxIdle) {
+            idle.push(view);
+        }
+    }
+
+    void clear() {
+        for (WebView view : idle) {
+            view.getEngine().load(null);
+        }
+        idle.clear();
+    }
+
+    PoolStats stats() {
+        return new PoolStats(created, reused, inUse.size(), idle.size(), loadedBytes(), peakBytes);
+    }
+
+    private long loadedBytes() {
+        long total = 0;
+        for (long bytes : inUse.values()) total += bytes;
+        return total;
+    }
+
+    private WebView newWebView() {
+        created++;
+        WebView view = new WebView();
+        // Initializes the engine so the first real page does not pay for it
+        view.getEngine().loadContent(BLANK_PAGE);
+        return view;
+    }
+
+    static final class PoolStats {
+        private final long created;
+        private final long reused;
+        private final int inUse;
+        private final int idle;
+        private final long documentBytes;
+        private final long peakDocumentBytes;
+
+        PoolStats(long created, long reused, int inUse, int idle, long documentBytes, long peakDocumentBytes) {
+            this.created = created;
+            this.reused = reused;
+            this.inUse = inUse;
+            this.idle = idle;
+            this.documentBytes = documentBytes;
+            this.peakDocumentBytes = peakDocumentBytes;
+        }
+
+        long getCreated() { return created; }
+        long getReused() { return reused; }
+        int getInUse() { return inUse; }
+        int getIdle() { return idle; }
+        long getDocumentBytes() { return documentBytes; }
+        long getPeakDocumentBytes() { return peakDocumentBytes; }
+
+        @Override
+        public String toString() {
+            return String.format("PoolStats{created=%d, reused=%d, inUse=%d, idle=%d, documentBytes=%d, peakDocumentBytes=%d}",
+                                 created, reused, inUse, idle, documentBytes, peakDocumentBytes);
+        }
+    }
+}
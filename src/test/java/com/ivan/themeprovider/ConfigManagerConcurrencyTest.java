@@ -0,0 +1,159 @@
+package com.ivan.themeprovider;
+
+import com.ivan.themeprovider.model.ConfigSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test for the copy-on-write configuration: concurrent {@link ConfigManager#update} calls
+ * must not lose changes, and every published {@link ConfigSnapshot} must be internally consistent.
+ */
+class ConfigManagerConcurrencyTest {
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 400;
+    private static final int READERS = 4;
+
+    // Each update appends "<writer>-<n>" to ITEMS and, in the same snapshot, sets COUNT to the
+    // list size and LAST[writer] to n
+    private static final String ITEMS = "stress_items";
+    private static final String COUNT = "stress_count";
+    private static final String LAST = "stress_last";
+
+    @TempDir
+    Path home;
+
+    private String previousHome;
+    private ConfigManager config;
+
+    @BeforeEach
+    void setUp() {
+        // The configuration lives under the user's home directory
+        previousHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+        config = new ConfigManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        config.shutdown();
+        System.setProperty("user.home", previousHome);
+    }
+
+    @Test
+    void concurrentUpdatesAreNotLost() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                String writer = "w" + w;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < UPDATES_PER_WRITER; n++) {
+                        int index = n;
+                        config.update(c -> append(c, writer, index));
+                    }
+                    return null;
+                }));
+            }
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(pool.submit(() -> {
+                    start.await();
+                    int checked = 0;
+                    int previousCount = 0;
+                    while (writing.get()) {
+                        ConfigSnapshot snapshot = config.getSnapshot();
+                        int count = assertConsistent(snapshot);
+                        assertTrue(count >= previousCount, "Snapshot went back from " + previousCount + " to " + count);
+                        previousCount = count;
+                        checked++;
+                    }
+                    return checked;
+                }));
+            }
+
+            start.countDown();
+            try {
+                for (Future<?> writer : writers) {
+                    writer.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                writing.set(false);
+            }
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ConfigSnapshot last = config.getSnapshot();
+        assertEquals(WRITERS * UPDATES_PER_WRITER, assertConsistent(last));
+        for (int w = 0; w < WRITERS; w++) {
+            assertEquals(String.valueOf(UPDATES_PER_WRITER - 1), last.getStringMap(LAST).get("w" + w));
+        }
+
+        // The final state also reaches the file
+        config.shutdown();
+        config = new ConfigManager();
+        assertEquals(WRITERS * UPDATES_PER_WRITER, assertConsistent(config.getSnapshot()));
+    }
+
+    @Test
+    void publishedSnapshotsDoNotChange() {
+        config.update(c -> append(c, "w0", 0));
+        ConfigSnapshot before = config.getSnapshot();
+        List<String> items = before.getStringList(ITEMS);
+
+        config.update(c -> append(c, "w0", 1));
+
+        assertEquals(List.of("w0-0"), before.getStringList(ITEMS));
+        assertEquals(2, assertConsistent(config.getSnapshot()));
+        assertThrows(UnsupportedOperationException.class, () -> items.add("w1-0"));
+        assertThrows(UnsupportedOperationException.class, () -> before.getStringMap(LAST).put("w1", "0"));
+    }
+
+    private static ConfigSnapshot append(ConfigSnapshot current, String writer, int index) {
+        List<String> items = new ArrayList<>(current.getStringList(ITEMS));
+        items.add(writer + "-" + index);
+        Map<String, String> last = new LinkedHashMap<>(current.getStringMap(LAST));
+        last.put(writer, String.valueOf(index));
+        return current.with(ITEMS, items).with(COUNT, items.size()).with(LAST, last);
+    }
+
+    /**
+     * Check that the keys written together by one update agree, and that each writer's updates
+     * appear complete and in order
+     *
+     * @return Number of updates contained in the snapshot
+     */
+    private static int assertConsistent(ConfigSnapshot snapshot) {
+        List<String> items = snapshot.getStringList(ITEMS);
+        assertEquals(String.valueOf(items.size()), snapshot.getString(COUNT, "0"), "Count does not match items");
+
+        Map<String, Integer> highest = new HashMap<>();
+        for (String item : items) {
+            String writer = item.substring(0, item.indexOf('-'));
+            int index = Integer.parseInt(item.substring(item.indexOf('-') + 1));
+            int expected = highest.getOrDefault(writer, -1) + 1;
+            assertEquals(expected, index, "Update of " + writer + " lost or out of order");
+            highest.put(writer, index);
+        }
+
+        Map<String, String> last = snapshot.getStringMap(LAST);
+        assertEquals(highest.keySet(), last.keySet());
+        highest.forEach((writer, index) -> assertEquals(String.valueOf(index), last.get(writer)));
+        return items.size();
+    }
+}